@@ -0,0 +1,128 @@
+package com.example.myshop.utils
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.example.myshop.BuildConfig
+import com.example.myshop.data.pricing.CartPricingEngine
+import com.example.myshop.data.pricing.PricingRules
+import com.example.myshop.models.CartItem
+import com.example.myshop.models.Money
+import com.example.myshop.models.Order
+import com.example.myshop.models.OrderItem
+import com.example.myshop.models.Product
+import com.google.android.gms.tasks.Task
+import com.google.android.gms.tasks.Tasks
+import com.google.firebase.firestore.FirebaseFirestore
+import com.google.firebase.firestore.FirebaseFirestoreException
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.UUID
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+// Runs FirebaseHelper.placeOrder's transaction against the Firestore emulator. Skipped
+// unless the build points at it: ./gradlew connectedDebugAndroidTest -PuseFirebaseEmulator=true
+@RunWith(AndroidJUnit4::class)
+class PlaceOrderEmulatorTest {
+
+    private lateinit var db: FirebaseFirestore
+    private lateinit var firebaseHelper: FirebaseHelper
+
+    // Every run writes under fresh ids, so the emulator never needs clearing between runs
+    private val runId = UUID.randomUUID().toString().take(8)
+    private val rules = PricingRules(minimumOrderCents = 0)
+
+    @Before
+    fun setUp() {
+        assumeTrue("Run with -PuseFirebaseEmulator=true", BuildConfig.USE_FIREBASE_EMULATOR)
+        db = FirebaseFirestore.getInstance()
+        firebaseHelper = FirebaseHelper.getInstance()
+    }
+
+    @Test
+    fun placesOrderAndReservesStock() {
+        val product = seedProduct("widget", priceCents = 1500, stock = 5)
+
+        val orderRef = await(firebaseHelper.placeOrder(userId("a"), orderFor(product, 2), rules))
+
+        val stored = await(orderRef.get()).toObject(Order::class.java)!!
+        val expected = CartPricingEngine.price(
+            listOf(CartItem(product.id, null, product.price, null, 2)), rules
+        )
+        assertEquals(expected.total, stored.total)
+        assertEquals(Money.of(1500), stored.items.single().unitPrice)
+        assertTrue(stored.isCountedInStats)
+        assertEquals(3L, stockOf(product))
+    }
+
+    @Test
+    fun abortsWhenStockIsShort() {
+        val product = seedProduct("scarce", priceCents = 1500, stock = 1)
+        val order = orderFor(product, 2)
+
+        val error = placeOrderFailure(userId("a"), order)
+
+        assertEquals(FirebaseFirestoreException.Code.FAILED_PRECONDITION, error.code)
+        assertEquals(1L, stockOf(product))
+        assertFalse(await(db.collection("orders").document(order.orderId).get()).exists())
+    }
+
+    @Test
+    fun onlyOneOfTwoConcurrentOrdersGetsTheLastUnit() {
+        val product = seedProduct("last", priceCents = 1500, stock = 1)
+
+        val first = firebaseHelper.placeOrder(userId("a"), orderFor(product, 1), rules)
+        val second = firebaseHelper.placeOrder(userId("b"), orderFor(product, 1), rules)
+        Tasks.await(Tasks.whenAllComplete(first, second), TIMEOUT_SECONDS, TimeUnit.SECONDS)
+
+        assertEquals(1, listOf(first, second).count { it.isSuccessful })
+        val failed = listOf(first, second).single { !it.isSuccessful }
+        assertEquals(FirebaseFirestoreException.Code.FAILED_PRECONDITION, firestoreError(failed.exception).code)
+        assertEquals(0L, stockOf(product))
+    }
+
+    private fun userId(name: String) = "test_${runId}_$name"
+
+    private fun seedProduct(name: String, priceCents: Long, stock: Int): Product {
+        val product = Product("test_${runId}_$name", name, "", Money.of(priceCents), "", "test", stock)
+        await(db.collection("products").document(product.id).set(product))
+        return product
+    }
+
+    // A fixed id, so a failed attempt can be checked for a stray order document
+    private fun orderFor(product: Product, quantity: Int) = Order(
+        db.collection("orders").document().id,
+        null,
+        listOf(OrderItem(product.id, quantity, product.price)),
+        Money.ZERO,
+        Order.ShippingAddress("Test User", "1 Test Street", "Testville", "TS", "00000", "555-0100"),
+        "card"
+    )
+
+    private fun stockOf(product: Product): Long? =
+        await(db.collection("products").document(product.id).get()).getLong("stockQuantity")
+
+    private fun placeOrderFailure(userId: String, order: Order): FirebaseFirestoreException {
+        try {
+            await(firebaseHelper.placeOrder(userId, order, rules))
+        } catch (e: ExecutionException) {
+            return firestoreError(e.cause)
+        }
+        throw AssertionError("Order was placed")
+    }
+
+    // The transaction's own exception, however the task wrapped it
+    private fun firestoreError(error: Throwable?): FirebaseFirestoreException =
+        generateSequence(error) { it.cause }.filterIsInstance<FirebaseFirestoreException>().firstOrNull()
+            ?: throw AssertionError("Expected a Firestore error", error)
+
+    private fun <T> await(task: Task<T>): T = Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS)
+
+    companion object {
+        private const val TIMEOUT_SECONDS = 30L
+    }
+}
@@ -1,55 +1,46 @@
 package com.example.myshop
 
 import android.app.Application
-import android.app.NotificationChannel
-import android.app.NotificationManager
+import android.content.BroadcastReceiver
 import android.content.Context
-import android.os.Build
-import com.google.firebase.FirebaseApp
-import com.google.firebase.firestore.FirebaseFirestore
-import com.google.firebase.firestore.FirebaseFirestoreSettings
+import android.content.Intent
+import android.content.IntentFilter
+import androidx.startup.AppInitializer
+import androidx.work.Configuration
+import com.example.myshop.startup.NotificationChannelInitializer
+import com.example.myshop.utils.Formatters
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
 
-class MyshopApplication : Application() {
+class MyshopApplication : Application(), Configuration.Provider {
+
+    private val applicationScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
 
     override fun onCreate() {
         super.onCreate()
 
-        // Initialize Firebase
-        FirebaseApp.initializeApp(this)
-        
-        // Configure Firestore settings
-        val settings = FirebaseFirestoreSettings.Builder()
-            .setPersistenceEnabled(true)
-            .build()
-        FirebaseFirestore.getInstance().firestoreSettings = settings
-
-        // Create notification channels for Android O and above
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            createNotificationChannels()
+        // Firebase and Firestore are set up by FirebaseInitializer before this runs.
+        // Nothing else is needed for the first frame, so it happens in the background.
+        applicationScope.launch {
+            AppInitializer.getInstance(this@MyshopApplication)
+                .initializeComponent(NotificationChannelInitializer::class.java)
         }
-    }
 
-    private fun createNotificationChannels() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            // Order Status Channel
-            val orderStatusChannel = NotificationChannel(
-                getString(R.string.order_status_notification_channel_id),
-                getString(R.string.order_status_channel_name),
-                NotificationManager.IMPORTANCE_HIGH
-            ).apply {
-                description = getString(R.string.order_status_channel_description)
-                enableLights(true)
-                enableVibration(true)
+        // Dates are formatted in the device's zone; formatters built for the old one are dropped
+        registerReceiver(object : BroadcastReceiver() {
+            override fun onReceive(context: Context, intent: Intent) {
+                Formatters.onTimeZoneChanged()
             }
-
-            // Get the NotificationManager
-            val notificationManager = getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
-
-            // Create the channels
-            notificationManager.createNotificationChannel(orderStatusChannel)
-        }
+        }, IntentFilter(Intent.ACTION_TIMEZONE_CHANGED))
     }
 
+    // WorkManager's own startup initializer is removed in the manifest, so it is only
+    // created the first time something enqueues work
+    override fun getWorkManagerConfiguration(): Configuration =
+        Configuration.Builder().build()
+
     companion object {
         private const val TAG = "MyshopApplication"
     }
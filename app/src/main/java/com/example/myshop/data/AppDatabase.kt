@@ -5,17 +5,29 @@ import androidx.room.Database
 import androidx.room.Room
 import androidx.room.RoomDatabase
 import com.example.myshop.data.dao.AddressDao
+import com.example.myshop.data.dao.CartDao
+import com.example.myshop.data.dao.FavoriteDao
+import com.example.myshop.data.dao.ProductDao
 import com.example.myshop.models.Address
+import com.example.myshop.models.CartItemEntity
+import com.example.myshop.models.FavoriteEntity
+import com.example.myshop.models.ProductEntity
 
 @Database(
-    entities = [Address::class],
-    version = 1,
-    exportSchema = false
+    entities = [Address::class, ProductEntity::class, CartItemEntity::class, FavoriteEntity::class],
+    version = 7,
+    exportSchema = true
 )
 abstract class AppDatabase : RoomDatabase() {
 
     abstract fun addressDao(): AddressDao
 
+    abstract fun productDao(): ProductDao
+
+    abstract fun cartDao(): CartDao
+
+    abstract fun favoriteDao(): FavoriteDao
+
     companion object {
         @Volatile
         private var INSTANCE: AppDatabase? = null
@@ -27,7 +39,7 @@ abstract class AppDatabase : RoomDatabase() {
                     AppDatabase::class.java,
                     "myshop_database"
                 )
-                .fallbackToDestructiveMigration()
+                .addMigrations(*DatabaseMigrations.ALL)
                 .build()
                 INSTANCE = instance
                 instance
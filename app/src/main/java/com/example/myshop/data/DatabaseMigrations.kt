@@ -0,0 +1,111 @@
+package com.example.myshop.data
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+// Every schema change gets a migration. Saved addresses exist only in this database, so
+// nothing here may be dropped on upgrade. Exported schemas are under app/schemas.
+object DatabaseMigrations {
+
+    // Local product catalog
+    val MIGRATION_1_2 = object : Migration(1, 2) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `products` (`id` TEXT NOT NULL, `name` TEXT NOT NULL, " +
+                        "`description` TEXT NOT NULL, `price` REAL NOT NULL, `imageUrl` TEXT NOT NULL, " +
+                        "`category` TEXT NOT NULL, `stockQuantity` INTEGER NOT NULL, " +
+                        "`updatedAt` INTEGER NOT NULL, `syncedAt` INTEGER NOT NULL, PRIMARY KEY(`id`))"
+            )
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_products_category` ON `products` (`category`)")
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_products_syncedAt` ON `products` (`syncedAt`)")
+        }
+    }
+
+    // Local cart with pending-edit flags
+    val MIGRATION_2_3 = object : Migration(2, 3) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `cart_items` (`userId` TEXT NOT NULL, `productId` TEXT NOT NULL, " +
+                        "`productName` TEXT NOT NULL, `productPrice` REAL NOT NULL, `productImage` TEXT NOT NULL, " +
+                        "`quantity` INTEGER NOT NULL, `pendingSync` INTEGER NOT NULL, " +
+                        "`pendingDelete` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`userId`, `productId`))"
+            )
+        }
+    }
+
+    // Decimal prices become minor units. SQLite can't drop a column before Android 14, so
+    // both tables are rebuilt; pending cart edits are copied over with everything else.
+    val MIGRATION_3_4 = object : Migration(3, 4) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `products_new` (`id` TEXT NOT NULL, `name` TEXT NOT NULL, " +
+                        "`description` TEXT NOT NULL, `priceCents` INTEGER NOT NULL, `currency` TEXT NOT NULL, " +
+                        "`imageUrl` TEXT NOT NULL, `category` TEXT NOT NULL, `stockQuantity` INTEGER NOT NULL, " +
+                        "`updatedAt` INTEGER NOT NULL, `syncedAt` INTEGER NOT NULL, PRIMARY KEY(`id`))"
+            )
+            db.execSQL(
+                "INSERT INTO `products_new` (`id`, `name`, `description`, `priceCents`, `currency`, `imageUrl`, " +
+                        "`category`, `stockQuantity`, `updatedAt`, `syncedAt`) " +
+                        "SELECT `id`, `name`, `description`, CAST(ROUND(`price` * 100) AS INTEGER), 'USD', " +
+                        "`imageUrl`, `category`, `stockQuantity`, `updatedAt`, `syncedAt` FROM `products`"
+            )
+            db.execSQL("DROP TABLE `products`")
+            db.execSQL("ALTER TABLE `products_new` RENAME TO `products`")
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_products_category` ON `products` (`category`)")
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_products_syncedAt` ON `products` (`syncedAt`)")
+
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `cart_items_new` (`userId` TEXT NOT NULL, `productId` TEXT NOT NULL, " +
+                        "`productName` TEXT NOT NULL, `productPriceCents` INTEGER NOT NULL, " +
+                        "`currency` TEXT NOT NULL, `productImage` TEXT NOT NULL, `quantity` INTEGER NOT NULL, " +
+                        "`pendingSync` INTEGER NOT NULL, `pendingDelete` INTEGER NOT NULL, " +
+                        "`updatedAt` INTEGER NOT NULL, PRIMARY KEY(`userId`, `productId`))"
+            )
+            db.execSQL(
+                "INSERT INTO `cart_items_new` (`userId`, `productId`, `productName`, `productPriceCents`, " +
+                        "`currency`, `productImage`, `quantity`, `pendingSync`, `pendingDelete`, `updatedAt`) " +
+                        "SELECT `userId`, `productId`, `productName`, CAST(ROUND(`productPrice` * 100) AS INTEGER), " +
+                        "'USD', `productImage`, `quantity`, `pendingSync`, `pendingDelete`, `updatedAt` " +
+                        "FROM `cart_items`"
+            )
+            db.execSQL("DROP TABLE `cart_items`")
+            db.execSQL("ALTER TABLE `cart_items_new` RENAME TO `cart_items`")
+        }
+    }
+
+    // Cart lines remember their product category for category discounts
+    val MIGRATION_4_5 = object : Migration(4, 5) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL("ALTER TABLE `cart_items` ADD COLUMN `category` TEXT")
+        }
+    }
+
+    // Resized image variants for the product cache
+    val MIGRATION_5_6 = object : Migration(5, 6) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL("ALTER TABLE `products` ADD COLUMN `thumbnailUrl` TEXT NOT NULL DEFAULT ''")
+            db.execSQL("ALTER TABLE `products` ADD COLUMN `detailImageUrl` TEXT NOT NULL DEFAULT ''")
+        }
+    }
+
+    // Local mirror of the user's favourites
+    val MIGRATION_6_7 = object : Migration(6, 7) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `favorites` (`userId` TEXT NOT NULL, `productId` TEXT NOT NULL, " +
+                        "`pendingSync` INTEGER NOT NULL, `pendingDelete` INTEGER NOT NULL, " +
+                        "`updatedAt` INTEGER NOT NULL, PRIMARY KEY(`userId`, `productId`))"
+            )
+        }
+    }
+
+    val ALL: Array<Migration> = arrayOf(
+        MIGRATION_1_2,
+        MIGRATION_2_3,
+        MIGRATION_3_4,
+        MIGRATION_4_5,
+        MIGRATION_5_6,
+        MIGRATION_6_7
+    )
+}
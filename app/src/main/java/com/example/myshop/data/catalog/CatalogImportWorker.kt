@@ -0,0 +1,101 @@
+package com.example.myshop.data.catalog
+
+import android.content.Context
+import android.content.Intent
+import android.net.Uri
+import androidx.lifecycle.LiveData
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.Data
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkInfo
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.example.myshop.utils.Resource
+import java.util.concurrent.TimeUnit
+
+// Runs a catalog import outside any screen. When WorkManager stops the worker or the
+// process dies, the retry resumes from CatalogImporter's checkpoint.
+class CatalogImportWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    override suspend fun doWork(): Result {
+        val source = inputData.getString(KEY_SOURCE)?.let(Uri::parse) ?: return Result.failure()
+
+        return when (val result = CatalogImporter(applicationContext).import(source) { setProgress(it.toData()) }) {
+            is Resource.Success -> Result.success(result.requireData().toData())
+            else -> if (runAttemptCount < MAX_ATTEMPTS) {
+                Result.retry()
+            } else {
+                Result.failure(workDataOf(KEY_ERROR to result.message))
+            }
+        }
+    }
+
+    companion object {
+        private const val WORK_NAME = "catalog_import"
+        private const val MAX_ATTEMPTS = 5
+        private const val BACKOFF_SECONDS = 30L
+
+        private const val KEY_SOURCE = "source"
+        private const val KEY_ROWS_READ = "rows_read"
+        private const val KEY_PRODUCTS_WRITTEN = "products_written"
+        private const val KEY_INVALID_ROWS = "invalid_rows"
+        private const val KEY_PRODUCTS_PER_SECOND = "products_per_second"
+        private const val KEY_ERRORS = "errors"
+        const val KEY_ERROR = "error"
+
+        // Only one import runs at a time; picking another file while one runs is ignored
+        fun enqueue(context: Context, source: Uri) {
+            // The worker may run after the picker's grant has lapsed
+            try {
+                context.contentResolver.takePersistableUriPermission(source, Intent.FLAG_GRANT_READ_URI_PERMISSION)
+            } catch (e: SecurityException) {
+                // Not a document URI; readable for as long as the process lives
+            }
+
+            val request = OneTimeWorkRequestBuilder<CatalogImportWorker>()
+                .setInputData(workDataOf(KEY_SOURCE to source.toString()))
+                .setConstraints(
+                    Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build()
+                )
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build()
+
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, request)
+        }
+
+        fun observe(context: Context): LiveData<List<WorkInfo>> =
+            WorkManager.getInstance(context).getWorkInfosForUniqueWorkLiveData(WORK_NAME)
+
+        // Reads progress from a running import or the result of a finished one
+        fun progressOf(info: WorkInfo): CatalogImportProgress? {
+            val data = if (info.state.isFinished) info.outputData else info.progress
+            if (!data.keyValueMap.containsKey(KEY_ROWS_READ)) return null
+            return CatalogImportProgress(
+                rowsRead = data.getLong(KEY_ROWS_READ, 0),
+                productsWritten = data.getLong(KEY_PRODUCTS_WRITTEN, 0),
+                invalidRows = data.getLong(KEY_INVALID_ROWS, 0),
+                productsPerSecond = data.getDouble(KEY_PRODUCTS_PER_SECOND, 0.0),
+                errors = data.getStringArray(KEY_ERRORS)?.toList().orEmpty()
+            )
+        }
+
+        private fun CatalogImportProgress.toData(): Data = workDataOf(
+            KEY_ROWS_READ to rowsRead,
+            KEY_PRODUCTS_WRITTEN to productsWritten,
+            KEY_INVALID_ROWS to invalidRows,
+            KEY_PRODUCTS_PER_SECOND to productsPerSecond,
+            KEY_ERRORS to errors.toTypedArray()
+        )
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.myshop.data.catalog
+
+import android.content.ContentResolver
+import android.content.Context
+import android.database.Cursor
+import android.net.Uri
+import android.os.SystemClock
+import android.provider.DocumentsContract
+import android.provider.OpenableColumns
+import com.example.myshop.models.Money
+import com.example.myshop.models.Product
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.PreferenceHelper
+import com.example.myshop.utils.Resource
+import com.example.myshop.utils.tryAsResourceSuspend
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.tasks.await
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.io.IOException
+
+data class CatalogImportProgress(
+    val rowsRead: Long,
+    val productsWritten: Long,
+    val invalidRows: Long,
+    val productsPerSecond: Double,
+    val errors: List<String>
+)
+
+// Streams an import file into the products collection. Rows are validated as they are
+// read and grouped into WriteBatch chunks, up to MAX_PARALLEL_IMPORT_BATCHES of which are
+// committed at once. Chunks are checkpointed in file order, so after the process is killed
+// the next run skips every row up to the last committed chunk. Chunks that were in flight
+// are written again, which is safe because products are keyed by their id.
+class CatalogImporter(
+    context: Context,
+    private val firebaseHelper: FirebaseHelper = FirebaseHelper.getInstance()
+) {
+    private val appContext = context.applicationContext
+    private val preferenceHelper = PreferenceHelper.getInstance(appContext)
+
+    private class Chunk(
+        val endRow: Long,
+        val products: List<Product>,
+        val stockIds: Set<String>,
+        val errors: List<String>
+    )
+
+    private class Checkpoint(val rowsRead: Long, val productsWritten: Long, val invalidRows: Long) {
+        override fun toString() = "$rowsRead,$productsWritten,$invalidRows"
+    }
+
+    suspend fun import(
+        source: Uri,
+        onProgress: suspend (CatalogImportProgress) -> Unit = {}
+    ): Resource<CatalogImportProgress> = withContext(Dispatchers.IO) {
+        tryAsResourceSuspend {
+            val importKey = importKeyFor(source)
+            var checkpoint = loadCheckpoint(importKey)
+            val errors = ArrayList<String>()
+            val startedAt = SystemClock.elapsedRealtime()
+            val writtenAtStart = checkpoint.productsWritten
+
+            fun progress() = CatalogImportProgress(
+                rowsRead = checkpoint.rowsRead,
+                productsWritten = checkpoint.productsWritten,
+                invalidRows = checkpoint.invalidRows,
+                productsPerSecond = (checkpoint.productsWritten - writtenAtStart) * 1000.0 /
+                        maxOf(SystemClock.elapsedRealtime() - startedAt, 1L),
+                errors = errors.toList()
+            )
+
+            suspend fun complete(pending: Deferred<Chunk>) {
+                val chunk = pending.await()
+                checkpoint = Checkpoint(
+                    chunk.endRow,
+                    checkpoint.productsWritten + chunk.products.size,
+                    checkpoint.invalidRows + chunk.errors.size
+                )
+                preferenceHelper.setImportCheckpoint(importKey, checkpoint.toString())
+                chunk.errors.take(MAX_REPORTED_ERRORS - errors.size).let(errors::addAll)
+                onProgress(progress())
+            }
+
+            val reader = appContext.contentResolver.openInputStream(source)?.bufferedReader()
+                ?: throw IOException("Cannot open $source")
+            CatalogReader.open(reader).use { catalog ->
+                coroutineScope {
+                    val inFlight = ArrayDeque<Deferred<Chunk>>()
+                    var products = ArrayList<Product>(Constants.IMPORT_BATCH_SIZE)
+                    var stockIds = HashSet<String>()
+                    var chunkErrors = ArrayList<String>()
+                    var lastRow = checkpoint.rowsRead
+
+                    fun flush() {
+                        val chunk = Chunk(lastRow, products, stockIds, chunkErrors)
+                        inFlight.addLast(async {
+                            if (chunk.products.isNotEmpty()) {
+                                firebaseHelper.importProducts(chunk.products, chunk.stockIds).await()
+                            }
+                            chunk
+                        })
+                        products = ArrayList(Constants.IMPORT_BATCH_SIZE)
+                        stockIds = HashSet()
+                        chunkErrors = ArrayList()
+                    }
+
+                    while (true) {
+                        val record = catalog.next() ?: break
+                        // Already committed by an earlier run
+                        if (record.rowNumber <= checkpoint.rowsRead) continue
+
+                        lastRow = record.rowNumber
+                        try {
+                            val product = toProduct(record.fields)
+                            products.add(product)
+                            // A blank stock column leaves the stored stock alone
+                            if (!record.fields["stockquantity"].isNullOrBlank()) stockIds.add(product.id)
+                        } catch (e: IllegalArgumentException) {
+                            chunkErrors.add("Row ${record.rowNumber}: ${e.message}")
+                        } catch (e: ArithmeticException) {
+                            chunkErrors.add("Row ${record.rowNumber}: price is out of range")
+                        }
+
+                        // Invalid rows count towards the chunk so the checkpoint moves past them too
+                        if (products.size + chunkErrors.size == Constants.IMPORT_BATCH_SIZE) {
+                            flush()
+                            // Oldest first, so the checkpoint only ever covers a contiguous prefix
+                            if (inFlight.size >= Constants.MAX_PARALLEL_IMPORT_BATCHES) {
+                                complete(inFlight.removeFirst())
+                            }
+                        }
+                    }
+                    if (products.isNotEmpty() || chunkErrors.isNotEmpty()) flush()
+                    while (inFlight.isNotEmpty()) {
+                        complete(inFlight.removeFirst())
+                    }
+                }
+            }
+
+            preferenceHelper.setImportCheckpoint(importKey, null)
+            progress()
+        }
+    }
+
+    // A file replaced under the same URI gets a new key, so its checkpoint is not reused
+    private fun importKeyFor(source: Uri): String {
+        var size = -1L
+        var lastModified = -1L
+        if (source.scheme == ContentResolver.SCHEME_FILE) {
+            source.path?.let(::File)?.let { file ->
+                size = file.length()
+                lastModified = file.lastModified()
+            }
+        } else {
+            // Not every provider reports both columns; a missing one stays -1
+            appContext.contentResolver.query(source, null, null, null, null)?.use { cursor ->
+                if (cursor.moveToFirst()) {
+                    size = cursor.longOrNull(OpenableColumns.SIZE) ?: -1L
+                    lastModified = cursor.longOrNull(DocumentsContract.Document.COLUMN_LAST_MODIFIED) ?: -1L
+                }
+            }
+        }
+        return Integer.toHexString("$source|$size|$lastModified".hashCode())
+    }
+
+    private fun Cursor.longOrNull(column: String): Long? {
+        val index = getColumnIndex(column)
+        return if (index < 0 || isNull(index)) null else getLong(index)
+    }
+
+    private fun loadCheckpoint(importKey: String): Checkpoint {
+        val parts = preferenceHelper.getImportCheckpoint(importKey)?.split(',')
+            ?.mapNotNull(String::toLongOrNull)
+            ?.takeIf { it.size == 3 }
+            ?: return Checkpoint(0, 0, 0)
+        return Checkpoint(parts[0], parts[1], parts[2])
+    }
+
+    // Throws IllegalArgumentException with a message for the admin when the row is unusable
+    private fun toProduct(fields: Map<String, String>): Product {
+        val id = fields["id"]?.trim().orEmpty()
+        require(id.isNotEmpty()) { "id is missing" }
+        require('/' !in id) { "id can't contain '/'" }
+
+        val name = fields["name"]?.trim().orEmpty()
+        require(name.isNotEmpty()) { "name is missing" }
+
+        val currency = fields["currency"]?.trim()?.uppercase()?.takeIf { it.isNotEmpty() }
+            ?: Money.DEFAULT_CURRENCY
+        val priceCents = fields["pricecents"]?.trim()?.takeIf { it.isNotEmpty() }?.let {
+            requireNotNull(it.toLongOrNull()) { "priceCents isn't a whole number" }
+        } ?: fields["price"]?.trim()?.takeIf { it.isNotEmpty() }?.let {
+            val price = requireNotNull(it.toBigDecimalOrNull()) { "price isn't a number" }
+            Money.toMinorUnits(price.toDouble(), currency)
+        } ?: throw IllegalArgumentException("price is missing")
+        require(priceCents >= 0) { "price is negative" }
+
+        val stockQuantity = fields["stockquantity"]?.trim()?.takeIf { it.isNotEmpty() }?.let {
+            requireNotNull(it.toIntOrNull()) { "stockQuantity isn't a whole number" }
+        } ?: 0
+        require(stockQuantity >= 0) { "stockQuantity is negative" }
+
+        return Product(
+            id,
+            name,
+            fields["description"]?.trim().orEmpty(),
+            Money.of(priceCents, currency),
+            fields["imageurl"]?.trim().orEmpty(),
+            fields["category"]?.trim().orEmpty(),
+            stockQuantity
+        )
+    }
+
+    companion object {
+        private const val MAX_REPORTED_ERRORS = 20
+    }
+}
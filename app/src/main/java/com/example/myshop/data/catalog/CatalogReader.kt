@@ -0,0 +1,122 @@
+package com.example.myshop.data.catalog
+
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import java.io.BufferedReader
+import java.io.Closeable
+import java.util.Locale
+
+// One row of an import file. Field names are normalised to lowercase letters and digits,
+// so "stock_quantity", "Stock Quantity" and "stockQuantity" all read as "stockquantity".
+class CatalogRecord(val rowNumber: Long, val fields: Map<String, String>)
+
+// Reads an import file one row at a time, so memory stays flat however large it is
+interface CatalogReader : Closeable {
+
+    // Null once the file is exhausted
+    fun next(): CatalogRecord?
+
+    companion object {
+        // A JSON file is an array of product objects; anything else is read as CSV with a header row
+        fun open(reader: BufferedReader): CatalogReader {
+            reader.mark(1)
+            var first = reader.read()
+            while (first != -1 && Character.isWhitespace(first)) {
+                reader.mark(1)
+                first = reader.read()
+            }
+            reader.reset()
+            return if (first == '['.code) JsonCatalogReader(reader) else CsvCatalogReader(reader)
+        }
+
+        internal fun normaliseName(name: String): String =
+            name.filter(Char::isLetterOrDigit).lowercase(Locale.ROOT)
+    }
+}
+
+// RFC 4180: quoted fields may hold commas, doubled quotes and line breaks
+internal class CsvCatalogReader(private val reader: BufferedReader) : CatalogReader {
+
+    private val header = readFields()?.map(CatalogReader::normaliseName).orEmpty()
+    private var rowNumber = 0L
+
+    override fun next(): CatalogRecord? {
+        while (true) {
+            val values = readFields() ?: return null
+            rowNumber++
+            // Blank lines still count, so row numbers match what the admin sees in a spreadsheet
+            if (values.size == 1 && values[0].isBlank()) continue
+
+            val fields = HashMap<String, String>(header.size * 2)
+            header.forEachIndexed { index, name ->
+                if (index < values.size) fields[name] = values[index]
+            }
+            return CatalogRecord(rowNumber, fields)
+        }
+    }
+
+    private fun readFields(): List<String>? {
+        var c = reader.read()
+        if (c == -1) return null
+
+        val fields = ArrayList<String>()
+        val field = StringBuilder()
+        var quoted = false
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"'.code) {
+                    reader.mark(1)
+                    if (reader.read() == '"'.code) {
+                        field.append('"')
+                    } else {
+                        reader.reset()
+                        quoted = false
+                    }
+                } else {
+                    field.append(c.toChar())
+                }
+            } else when (c) {
+                '"'.code -> if (field.isEmpty()) quoted = true else field.append('"')
+                ','.code -> {
+                    fields.add(field.toString())
+                    field.setLength(0)
+                }
+                '\n'.code -> break
+                '\r'.code -> Unit
+                else -> field.append(c.toChar())
+            }
+            c = reader.read()
+        }
+        fields.add(field.toString())
+        return fields
+    }
+
+    override fun close() = reader.close()
+}
+
+internal class JsonCatalogReader(reader: BufferedReader) : CatalogReader {
+
+    private val json = JsonReader(reader).apply { beginArray() }
+    private var rowNumber = 0L
+
+    override fun next(): CatalogRecord? {
+        if (!json.hasNext()) return null
+        rowNumber++
+
+        val fields = HashMap<String, String>()
+        json.beginObject()
+        while (json.hasNext()) {
+            val name = CatalogReader.normaliseName(json.nextName())
+            when (json.peek()) {
+                JsonToken.STRING, JsonToken.NUMBER -> fields[name] = json.nextString()
+                JsonToken.BOOLEAN -> fields[name] = json.nextBoolean().toString()
+                // Nested values aren't product fields
+                else -> json.skipValue()
+            }
+        }
+        json.endObject()
+        return CatalogRecord(rowNumber, fields)
+    }
+
+    override fun close() = json.close()
+}
@@ -0,0 +1,62 @@
+package com.example.myshop.data.dao
+
+import androidx.room.*
+import com.example.myshop.models.CartItemEntity
+import kotlinx.coroutines.flow.Flow
+
+@Dao
+interface CartDao {
+    @Query("SELECT * FROM cart_items WHERE userId = :userId AND pendingDelete = 0 ORDER BY productId")
+    fun getCartItems(userId: String): Flow<List<CartItemEntity>>
+
+    @Query("SELECT * FROM cart_items WHERE userId = :userId AND pendingSync = 1")
+    suspend fun getPendingItems(userId: String): List<CartItemEntity>
+
+    @Query("SELECT * FROM cart_items WHERE userId = :userId AND productId = :productId")
+    suspend fun getCartItem(userId: String, productId: String): CartItemEntity?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertCartItem(item: CartItemEntity)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertCartItems(items: List<CartItemEntity>)
+
+    // Repeated taps on one product collapse into this single dirty row
+    @Query("UPDATE cart_items SET quantity = :quantity, pendingSync = 1, updatedAt = :updatedAt WHERE userId = :userId AND productId = :productId")
+    suspend fun updateQuantity(userId: String, productId: String, quantity: Int, updatedAt: Long)
+
+    @Query("UPDATE cart_items SET pendingDelete = 1, pendingSync = 1, updatedAt = :updatedAt WHERE userId = :userId AND productId = :productId")
+    suspend fun markDeleted(userId: String, productId: String, updatedAt: Long)
+
+    // Only clears rows that were not changed again while the flush was in flight
+    @Query("UPDATE cart_items SET pendingSync = 0 WHERE userId = :userId AND productId = :productId AND updatedAt = :updatedAt AND pendingDelete = 0")
+    suspend fun markSynced(userId: String, productId: String, updatedAt: Long)
+
+    @Query("DELETE FROM cart_items WHERE userId = :userId AND productId = :productId AND updatedAt = :updatedAt AND pendingDelete = 1")
+    suspend fun deleteSynced(userId: String, productId: String, updatedAt: Long)
+
+    @Query("DELETE FROM cart_items WHERE userId = :userId AND pendingSync = 0")
+    suspend fun deleteSyncedItems(userId: String)
+
+    @Query("DELETE FROM cart_items WHERE userId = :userId")
+    suspend fun deleteAllCartItems(userId: String)
+
+    @Transaction
+    suspend fun completeFlush(userId: String, flushed: List<CartItemEntity>) {
+        flushed.forEach { item ->
+            if (item.pendingDelete) {
+                deleteSynced(userId, item.productId, item.updatedAt)
+            } else {
+                markSynced(userId, item.productId, item.updatedAt)
+            }
+        }
+    }
+
+    // Replaces the clean rows with the server copy, keeping unflushed local edits
+    @Transaction
+    suspend fun mergeRemoteItems(userId: String, remoteItems: List<CartItemEntity>) {
+        val pendingIds = getPendingItems(userId).map { it.productId }.toSet()
+        deleteSyncedItems(userId)
+        insertCartItems(remoteItems.filter { it.productId !in pendingIds })
+    }
+}
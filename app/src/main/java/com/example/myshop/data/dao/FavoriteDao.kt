@@ -0,0 +1,45 @@
+package com.example.myshop.data.dao
+
+import androidx.room.*
+import com.example.myshop.models.FavoriteEntity
+import kotlinx.coroutines.flow.Flow
+
+@Dao
+interface FavoriteDao {
+    @Query("SELECT productId FROM favorites WHERE userId = :userId AND pendingDelete = 0 ORDER BY updatedAt")
+    fun getFavoriteIds(userId: String): Flow<List<String>>
+
+    @Query("SELECT * FROM favorites WHERE userId = :userId AND productId = :productId")
+    suspend fun getFavorite(userId: String, productId: String): FavoriteEntity?
+
+    @Query("SELECT * FROM favorites WHERE userId = :userId AND pendingSync = 1")
+    suspend fun getPendingFavorites(userId: String): List<FavoriteEntity>
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertFavorite(favorite: FavoriteEntity)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertFavorites(favorites: List<FavoriteEntity>)
+
+    // Only clears rows that were not toggled again while the write was in flight
+    @Query("UPDATE favorites SET pendingSync = 0 WHERE userId = :userId AND productId = :productId AND updatedAt = :updatedAt AND pendingDelete = 0")
+    suspend fun markSynced(userId: String, productId: String, updatedAt: Long)
+
+    @Query("DELETE FROM favorites WHERE userId = :userId AND productId = :productId AND updatedAt = :updatedAt AND pendingDelete = 1")
+    suspend fun deleteSynced(userId: String, productId: String, updatedAt: Long)
+
+    @Query("DELETE FROM favorites WHERE userId = :userId AND pendingSync = 0")
+    suspend fun deleteSyncedFavorites(userId: String)
+
+    // Replaces the clean rows with the server list, keeping unsynced local toggles
+    @Transaction
+    suspend fun mergeRemoteFavorites(userId: String, productIds: List<String>) {
+        val pendingIds = getPendingFavorites(userId).map { it.productId }.toSet()
+        deleteSyncedFavorites(userId)
+        // Spaced by a millisecond so the server order survives ORDER BY updatedAt
+        val base = System.currentTimeMillis()
+        insertFavorites(productIds.filterNot(pendingIds::contains).mapIndexed { index, productId ->
+            FavoriteEntity(userId, productId, updatedAt = base - productIds.size + index)
+        })
+    }
+}
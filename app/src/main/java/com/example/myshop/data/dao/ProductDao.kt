@@ -0,0 +1,41 @@
+package com.example.myshop.data.dao
+
+import androidx.paging.PagingSource
+import androidx.room.*
+import com.example.myshop.data.search.SearchableProduct
+import com.example.myshop.models.ProductEntity
+
+@Dao
+interface ProductDao {
+    @Query("SELECT * FROM products ORDER BY id")
+    fun getProductsPagingSource(): PagingSource<Int, ProductEntity>
+
+    @Query("SELECT * FROM products WHERE id = :productId")
+    suspend fun getProductById(productId: String): ProductEntity?
+
+    @Query("SELECT * FROM products WHERE id IN (:productIds) ORDER BY name")
+    suspend fun getProductsByIds(productIds: List<String>): List<ProductEntity>
+
+    // Only the columns the search index tokenizes
+    @Query("SELECT id, name, category FROM products")
+    suspend fun getSearchableProducts(): List<SearchableProduct>
+
+    @Query("SELECT COUNT(*) FROM products")
+    suspend fun getProductCount(): Int
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertProduct(product: ProductEntity)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertProducts(products: List<ProductEntity>)
+
+    @Query("DELETE FROM products WHERE id = :productId")
+    suspend fun deleteProduct(productId: String)
+
+    // Removes rows not touched by a full sync started at syncStart
+    @Query("DELETE FROM products WHERE syncedAt < :syncStart")
+    suspend fun deleteProductsSyncedBefore(syncStart: Long)
+
+    @Query("DELETE FROM products")
+    suspend fun deleteAllProducts()
+}
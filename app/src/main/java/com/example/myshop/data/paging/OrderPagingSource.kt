@@ -0,0 +1,61 @@
+package com.example.myshop.data.paging
+
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
+import com.example.myshop.models.Order
+import com.google.android.gms.tasks.Task
+import com.google.firebase.firestore.DocumentSnapshot
+import com.google.firebase.firestore.QuerySnapshot
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.tasks.await
+
+// Pages an order query with Firestore cursors. Keys are page numbers; the cursor each page
+// starts after is remembered, so pages dropped from the in-memory window can be reloaded
+// when the user scrolls back up. Every page uses the same size, whatever loadSize Paging
+// asks for, so a reloaded page ends exactly where the next one starts.
+class OrderPagingSource(
+    private val pageSize: Int,
+    private val loadPage: (lastVisible: DocumentSnapshot?, pageSize: Long) -> Task<QuerySnapshot>
+) : PagingSource<Int, Order>() {
+
+    // Prepend and append loads can run at the same time, so every access holds the lock
+    private val pageCursors = mutableListOf<DocumentSnapshot?>(null)
+
+    override suspend fun load(params: LoadParams<Int>): LoadResult<Int, Order> {
+        val page = params.key ?: 0
+        return try {
+            val cursor = synchronized(pageCursors) { pageCursors[page] }
+            val snapshot = loadPage(cursor, pageSize.toLong()).await()
+            val orders = snapshot.documents.mapNotNull { document ->
+                document.toObject(Order::class.java)?.also { order ->
+                    if (order.orderId == null) {
+                        order.orderId = document.id
+                    }
+                }
+            }
+
+            val lastVisible = snapshot.documents.lastOrNull()
+            val hasMore = lastVisible != null && snapshot.size() >= pageSize
+            if (hasMore) {
+                synchronized(pageCursors) {
+                    if (pageCursors.size == page + 1) {
+                        pageCursors.add(lastVisible)
+                    }
+                }
+            }
+
+            LoadResult.Page(
+                data = orders,
+                prevKey = if (page == 0) null else page - 1,
+                nextKey = if (hasMore) page + 1 else null
+            )
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            LoadResult.Error(e)
+        }
+    }
+
+    // Cursors belong to this source, so a refresh starts again from the newest order
+    override fun getRefreshKey(state: PagingState<Int, Order>): Int? = null
+}
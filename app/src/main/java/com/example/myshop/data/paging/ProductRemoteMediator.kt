@@ -0,0 +1,33 @@
+package com.example.myshop.data.paging
+
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.LoadType
+import androidx.paging.PagingState
+import androidx.paging.RemoteMediator
+import com.example.myshop.data.sync.ProductSyncManager
+import com.example.myshop.models.ProductEntity
+import com.example.myshop.utils.Resource
+
+// The grid always pages from Room; a refresh only pulls catalog changes into it
+@OptIn(ExperimentalPagingApi::class)
+class ProductRemoteMediator(
+    private val syncManager: ProductSyncManager
+) : RemoteMediator<Int, ProductEntity>() {
+
+    override suspend fun initialize(): InitializeAction = InitializeAction.LAUNCH_INITIAL_REFRESH
+
+    override suspend fun load(
+        loadType: LoadType,
+        state: PagingState<Int, ProductEntity>
+    ): MediatorResult {
+        // A sync brings in every changed product, so there is never more to append
+        if (loadType != LoadType.REFRESH) {
+            return MediatorResult.Success(endOfPaginationReached = true)
+        }
+
+        return when (val result = syncManager.sync()) {
+            is Resource.Success -> MediatorResult.Success(endOfPaginationReached = true)
+            else -> MediatorResult.Error(result.error ?: Exception(result.message))
+        }
+    }
+}
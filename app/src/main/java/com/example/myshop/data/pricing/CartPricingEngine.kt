@@ -0,0 +1,125 @@
+package com.example.myshop.data.pricing
+
+import com.example.myshop.models.CartItem
+import com.example.myshop.models.Money
+import com.example.myshop.utils.Utils
+
+// Keeps running cart totals. Each line is priced once when it is added or changes -
+// discount, then tax on the discounted amount - and its contribution is swapped into the
+// totals, so a quantity change costs one line rather than a pass over the cart. Cart-wide
+// rules (free shipping, minimum order) only look at the totals.
+// Used by the cart and checkout screens, and by order creation through price().
+class CartPricingEngine(private val rules: PricingRules = PricingRules.DEFAULT) {
+
+    private class Line(
+        val priceCents: Long,
+        val quantity: Int,
+        val category: String?,
+        val subtotalCents: Long,
+        val discountCents: Long,
+        val taxCents: Long
+    )
+
+    private val lines = HashMap<String, Line>()
+    private var subtotalCents = 0L
+    private var discountCents = 0L
+    private var taxCents = 0L
+    private var itemCount = 0
+
+    // Adds or replaces a line; returns false when nothing that affects pricing changed
+    fun put(item: CartItem): Boolean {
+        val previous = lines[item.productId]
+        if (previous != null &&
+            previous.priceCents == item.productPriceCents &&
+            previous.quantity == item.quantity &&
+            previous.category == item.category
+        ) {
+            return false
+        }
+
+        previous?.let(::subtract)
+        val line = priceLine(item)
+        lines[item.productId] = line
+        add(line)
+        return true
+    }
+
+    fun remove(productId: String): Boolean {
+        val line = lines.remove(productId) ?: return false
+        subtract(line)
+        return true
+    }
+
+    fun clear() {
+        lines.clear()
+        subtotalCents = 0
+        discountCents = 0
+        taxCents = 0
+        itemCount = 0
+    }
+
+    // Brings the engine in line with a full cart snapshot, repricing only the lines that changed
+    fun submit(items: List<CartItem>): CartQuote {
+        if (lines.isNotEmpty()) {
+            val current = items.mapTo(HashSet(items.size)) { it.productId }
+            lines.keys.filterNot(current::contains).forEach(::remove)
+        }
+        items.forEach(::put)
+        return quote()
+    }
+
+    fun quote(): CartQuote {
+        val discountedCents = subtotalCents - discountCents
+        val freeShipping = rules.freeShippingThresholdCents?.let { discountedCents >= it } ?: false
+        val shippingCents = if (lines.isEmpty() || freeShipping) 0L else rules.shippingCents
+
+        return CartQuote(
+            subtotal = money(subtotalCents),
+            discount = money(discountCents),
+            tax = money(taxCents),
+            shipping = money(shippingCents),
+            itemCount = itemCount,
+            minimumOrder = money(rules.minimumOrderCents)
+        )
+    }
+
+    private fun priceLine(item: CartItem): Line {
+        val subtotal = item.productPriceCents * item.quantity
+        val discountPercent = item.category?.let(rules.categoryDiscountPercents::get) ?: 0
+        val discount = if (discountPercent > 0) {
+            subtotal - Utils.calculateDiscount(money(subtotal), discountPercent).minorUnits
+        } else {
+            0L
+        }
+        val taxBasisPoints = item.category?.let(rules.categoryTaxBasisPoints::get) ?: rules.defaultTaxBasisPoints
+        val tax = if (taxBasisPoints > 0) roundedShare(subtotal - discount, taxBasisPoints, 10_000) else 0L
+        return Line(item.productPriceCents, item.quantity, item.category, subtotal, discount, tax)
+    }
+
+    private fun add(line: Line) {
+        subtotalCents += line.subtotalCents
+        discountCents += line.discountCents
+        taxCents += line.taxCents
+        itemCount += line.quantity
+    }
+
+    private fun subtract(line: Line) {
+        subtotalCents -= line.subtotalCents
+        discountCents -= line.discountCents
+        taxCents -= line.taxCents
+        itemCount -= line.quantity
+    }
+
+    private fun money(cents: Long) = Money.of(cents, rules.currency)
+
+    companion object {
+        // Prices a fixed list in one go, e.g. the lines of an order being placed
+        @JvmStatic
+        fun price(items: List<CartItem>, rules: PricingRules): CartQuote =
+            CartPricingEngine(rules).submit(items)
+
+        // amount * numerator / denominator, rounded half up
+        internal fun roundedShare(amount: Long, numerator: Int, denominator: Int): Long =
+            (amount * numerator + denominator / 2) / denominator
+    }
+}
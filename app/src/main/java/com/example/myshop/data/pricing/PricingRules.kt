@@ -0,0 +1,41 @@
+package com.example.myshop.data.pricing
+
+import com.example.myshop.models.Money
+import com.example.myshop.utils.Constants
+
+// Everything that turns cart lines into an amount due. Amounts are minor units; tax rates
+// are basis points (825 = 8.25%). The defaults charge flat shipping with no promotions or
+// tax, which is what checkout has always done.
+data class PricingRules(
+    val shippingCents: Long = Constants.DEFAULT_SHIPPING_COST_CENTS,
+    val freeShippingThresholdCents: Long? = null,
+    val minimumOrderCents: Long = Constants.MIN_ORDER_AMOUNT_CENTS,
+    val categoryDiscountPercents: Map<String, Int> = emptyMap(),
+    val categoryTaxBasisPoints: Map<String, Int> = emptyMap(),
+    val defaultTaxBasisPoints: Int = 0,
+    val currency: String = Money.DEFAULT_CURRENCY
+) {
+    companion object {
+        @JvmField
+        val DEFAULT = PricingRules()
+    }
+}
+
+// A priced cart. itemsTotal is what the lines cost after promotions and tax; total adds
+// shipping and is what the order is charged.
+data class CartQuote(
+    val subtotal: Money,
+    val discount: Money,
+    val tax: Money,
+    val shipping: Money,
+    val itemCount: Int,
+    val minimumOrder: Money
+) {
+    val itemsTotal: Money get() = subtotal.minus(discount).plus(tax)
+    val total: Money get() = itemsTotal.plus(shipping)
+
+    // Promotions count against the minimum, tax and shipping don't
+    val meetsMinimum: Boolean get() = subtotal.minus(discount) >= minimumOrder
+
+    val amountToMinimum: Money get() = if (meetsMinimum) Money.ZERO else minimumOrder.minus(subtotal.minus(discount))
+}
@@ -3,6 +3,7 @@ package com.example.myshop.data.repository
 import android.location.Geocoder
 import android.content.Context
 import androidx.lifecycle.LiveData
+import com.example.myshop.R
 import com.example.myshop.data.dao.AddressDao
 import com.example.myshop.models.Address
 import com.example.myshop.utils.Resource
@@ -24,7 +25,13 @@ class AddressRepository(
     private val addressDao: AddressDao,
     private val context: Context
 ) {
-    private val placesClient: PlacesClient = Places.createClient(context)
+    // Built on the first autocomplete or place lookup instead of with the repository
+    private val placesClient: PlacesClient by lazy {
+        if (!Places.isInitialized()) {
+            Places.initialize(context.applicationContext, context.getString(R.string.google_maps_key))
+        }
+        Places.createClient(context)
+    }
 
     // Room Database Operations
     fun getAddresses(userId: String): LiveData<List<Address>> = addressDao.getAddresses(userId)
@@ -0,0 +1,83 @@
+package com.example.myshop.data.repository
+
+import com.example.myshop.data.dao.CartDao
+import com.example.myshop.models.CartItem
+import com.example.myshop.models.CartItemEntity
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.Resource
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.tasks.await
+
+// Cart edits land in Room first and are pushed to carts/{userId}/items in batches
+class CartRepository(
+    private val cartDao: CartDao,
+    private val firebaseHelper: FirebaseHelper = FirebaseHelper.getInstance()
+) {
+    fun getCartItems(userId: String): Flow<List<CartItem>> =
+        cartDao.getCartItems(userId).map { items -> items.map(CartItemEntity::toCartItem) }
+
+    suspend fun addToCart(userId: String, cartItem: CartItem) {
+        cartDao.insertCartItem(CartItemEntity.fromCartItem(userId, cartItem, pendingSync = true))
+    }
+
+    suspend fun updateQuantity(userId: String, productId: String, quantity: Int) {
+        cartDao.updateQuantity(userId, productId, quantity, System.currentTimeMillis())
+    }
+
+    suspend fun removeFromCart(userId: String, productId: String) {
+        cartDao.markDeleted(userId, productId, System.currentTimeMillis())
+    }
+
+    // Drops the local copy once the server cart has been cleared, e.g. after checkout
+    suspend fun clearLocalCart(userId: String) {
+        cartDao.deleteAllCartItems(userId)
+    }
+
+    // Writes every pending edit in a single WriteBatch
+    suspend fun flush(userId: String): Resource<Unit> = flushMutex.withLock {
+        try {
+            val pending = cartDao.getPendingItems(userId)
+            if (pending.isNotEmpty()) {
+                val (removed, updated) = pending.partition { it.pendingDelete }
+                firebaseHelper.commitCartChanges(
+                    userId,
+                    updated.map(CartItemEntity::toCartItem),
+                    removed.map { it.productId }
+                ).await()
+                cartDao.completeFlush(userId, pending)
+            }
+            Resource.Success(Unit)
+        } catch (e: CancellationException) {
+            // A superseded debounce, not a failure; the edits stay pending for the next flush
+            throw e
+        } catch (e: Exception) {
+            Resource.Error("Failed to sync cart: ${e.message}", e)
+        }
+    }
+
+    // Pushes local edits, then pulls the server cart into Room
+    suspend fun refresh(userId: String): Resource<Unit> {
+        val flushResult = flush(userId)
+        return try {
+            val snapshot = firebaseHelper.getCartItems(userId).await()
+            val remoteItems = snapshot.documents.mapNotNull { document ->
+                document.toObject(CartItem::class.java)?.let { CartItemEntity.fromCartItem(userId, it) }
+            }
+            cartDao.mergeRemoteItems(userId, remoteItems)
+            flushResult
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Resource.Error("Failed to load cart items: ${e.message}", e)
+        }
+    }
+
+    companion object {
+        // Shared by every instance, so CartFlushWorker and a screen never commit the same edits at once
+        private val flushMutex = Mutex()
+    }
+}
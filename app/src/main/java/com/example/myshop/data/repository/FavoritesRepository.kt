@@ -0,0 +1,70 @@
+package com.example.myshop.data.repository
+
+import com.example.myshop.data.dao.FavoriteDao
+import com.example.myshop.models.FavoriteEntity
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.Resource
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.tasks.await
+
+// Favourites live in Room and are pushed to users/{userId}.favoriteProducts one
+// arrayUnion/arrayRemove per toggle. Toggles made offline stay pending and go out on the
+// next toggle or refresh.
+class FavoritesRepository(
+    private val favoriteDao: FavoriteDao,
+    private val firebaseHelper: FirebaseHelper = FirebaseHelper.getInstance()
+) {
+    private val syncMutex = Mutex()
+
+    // A LinkedHashSet, so each grid row checks membership in O(1) and order is kept
+    fun getFavoriteIds(userId: String): Flow<Set<String>> =
+        favoriteDao.getFavoriteIds(userId).map { ids -> LinkedHashSet(ids) }
+
+    // Returns whether the product is now a favourite
+    suspend fun toggle(userId: String, productId: String): Boolean {
+        val current = favoriteDao.getFavorite(userId, productId)
+        val favorite = current == null || current.pendingDelete
+        favoriteDao.insertFavorite(
+            FavoriteEntity(userId, productId, pendingSync = true, pendingDelete = !favorite)
+        )
+        return favorite
+    }
+
+    // Writes every pending toggle; each is a single-element array op on the user document
+    suspend fun sync(userId: String): Resource<Unit> = syncMutex.withLock {
+        try {
+            favoriteDao.getPendingFavorites(userId).forEach { favorite ->
+                if (favorite.pendingDelete) {
+                    firebaseHelper.removeFavoriteProduct(userId, favorite.productId).await()
+                    favoriteDao.deleteSynced(userId, favorite.productId, favorite.updatedAt)
+                } else {
+                    firebaseHelper.addFavoriteProduct(userId, favorite.productId).await()
+                    favoriteDao.markSynced(userId, favorite.productId, favorite.updatedAt)
+                }
+            }
+            Resource.Success(Unit)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Resource.Error("Failed to sync favorites: ${e.message}", e)
+        }
+    }
+
+    // Pushes local toggles, then pulls the server list into Room
+    suspend fun refresh(userId: String): Resource<Unit> {
+        val syncResult = sync(userId)
+        return try {
+            val user = firebaseHelper.getUserProfile(userId).await()
+            favoriteDao.mergeRemoteFavorites(userId, user?.favoriteProducts.orEmpty())
+            syncResult
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Resource.Error("Failed to load favorites: ${e.message}", e)
+        }
+    }
+}
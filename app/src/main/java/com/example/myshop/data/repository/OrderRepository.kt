@@ -0,0 +1,211 @@
+package com.example.myshop.data.repository
+
+import android.content.Context
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import com.example.myshop.data.AppDatabase
+import com.example.myshop.data.dao.ProductDao
+import com.example.myshop.data.paging.OrderPagingSource
+import com.example.myshop.models.CartItem
+import com.example.myshop.models.Order
+import com.example.myshop.models.Product
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.Resource
+import com.google.android.gms.tasks.Task
+import com.google.firebase.firestore.DocumentSnapshot
+import com.google.firebase.firestore.QuerySnapshot
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onCompletion
+import kotlinx.coroutines.flow.shareIn
+import kotlinx.coroutines.tasks.await
+import java.util.concurrent.ConcurrentHashMap
+
+class OrderRepository private constructor(
+    private val productDao: ProductDao,
+    private val firebaseHelper: FirebaseHelper
+) {
+    // Outlives any one screen so a listener can be handed from one subscriber to the next
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Main.immediate)
+    private val orderFlows = ConcurrentHashMap<String, SharedFlow<Result<Order>>>()
+
+    // One snapshot listener per order no matter how many screens observe it. The listener
+    // is removed ORDER_LISTENER_STOP_TIMEOUT_MS after the last subscriber goes away, so a
+    // configuration change does not tear it down and re-read the document. The map entry
+    // goes with it, so orders nobody watches any more are not held on to.
+    fun observeOrder(orderId: String): Flow<Order> = orderFlows.getOrPut(orderId) {
+        lateinit var shared: SharedFlow<Result<Order>>
+        shared = orderSnapshots(orderId)
+            .map { Result.success(it) }
+            // Errors are handed to the subscribers; the next observer starts a new listener
+            .catch { e -> emit(Result.failure(e)) }
+            // Sharing stopped or the listener failed; only this flow's own entry is removed
+            .onCompletion { orderFlows.remove(orderId, shared) }
+            .shareIn(
+                scope,
+                SharingStarted.WhileSubscribed(ORDER_LISTENER_STOP_TIMEOUT_MS),
+                replay = 1
+            )
+        shared
+    }.map { it.getOrThrow() }
+
+    fun getUserOrders(userId: String): Flow<PagingData<Order>> = pagedOrders { lastVisible, pageSize ->
+        firebaseHelper.getUserOrders(userId, lastVisible, pageSize)
+    }
+
+    // Admin console: every order, or only those in one status
+    fun getAllOrders(status: String?): Flow<PagingData<Order>> = pagedOrders { lastVisible, pageSize ->
+        if (status == null) {
+            firebaseHelper.getAllOrders(lastVisible, pageSize)
+        } else {
+            firebaseHelper.getOrdersByStatus(status, lastVisible, pageSize)
+        }
+    }
+
+    // Moves every order in fromStatus to toStatus, BULK_STATUS_PAGE_SIZE orders per round.
+    // Each round starts after the last document of the previous one; startAfter uses the
+    // snapshot's orderDate and id, so it still works once that order has left the query.
+    // Returns the number of orders moved; onProgress gets the running count after each round.
+    suspend fun advanceOrders(
+        fromStatus: String,
+        toStatus: String,
+        notificationTitle: String,
+        notificationMessage: String,
+        onProgress: suspend (Int) -> Unit = {}
+    ): Resource<Int> {
+        var updated = 0
+        var lastVisible: DocumentSnapshot? = null
+        return try {
+            while (true) {
+                val snapshot = firebaseHelper
+                    .getOrdersByStatus(fromStatus, lastVisible, BULK_STATUS_PAGE_SIZE)
+                    .await()
+                if (snapshot.isEmpty) break
+
+                val orders = snapshot.documents.mapNotNull { document ->
+                    document.toObject(Order::class.java)?.also { order ->
+                        if (order.orderId == null) {
+                            order.orderId = document.id
+                        }
+                    }
+                }
+                firebaseHelper.updateOrderStatuses(orders, toStatus, notificationTitle, notificationMessage).await()
+                updated += orders.size
+                onProgress(updated)
+                if (snapshot.size() < BULK_STATUS_PAGE_SIZE) break
+                lastVisible = snapshot.documents.last()
+            }
+            Resource.Success(updated)
+        } catch (e: Exception) {
+            Resource.Error("Failed to update orders after $updated: ${e.message}", e)
+        }
+    }
+
+    // At most ORDER_WINDOW_SIZE orders are held; pages scrolled far away are dropped and
+    // reloaded from their cursor if the user comes back to them
+    private fun pagedOrders(
+        loadPage: (DocumentSnapshot?, Long) -> Task<QuerySnapshot>
+    ): Flow<PagingData<Order>> = Pager(
+        config = PagingConfig(
+            pageSize = Constants.PAGE_SIZE,
+            initialLoadSize = Constants.PAGE_SIZE,
+            maxSize = Constants.ORDER_WINDOW_SIZE,
+            enablePlaceholders = false
+        ),
+        pagingSourceFactory = { OrderPagingSource(Constants.PAGE_SIZE, loadPage) }
+    ).flow
+
+    // Joins compact order items with product names and images: memory cache first, then the
+    // Room catalog, then whereIn queries for whatever is left. Orders are hydrated together
+    // so a product shared by several orders is looked up once.
+    suspend fun hydrateItems(orders: List<Order>) {
+        val productIds = orders.flatMap { it.items.orEmpty() }.map { it.productId }.distinct()
+        if (productIds.isEmpty()) {
+            orders.forEach { it.lineItems = emptyList() }
+            return
+        }
+
+        val products = HashMap<String, Product>()
+        productIds.forEach { id -> firebaseHelper.getCachedProduct(id)?.let { products[id] = it } }
+
+        var missing = productIds.filterNot(products::containsKey)
+        if (missing.isNotEmpty()) {
+            missing.chunked(MAX_SQL_VARIABLES).forEach { chunk ->
+                productDao.getProductsByIds(chunk).forEach { entity ->
+                    products[entity.id] = entity.toProduct().also(firebaseHelper::cacheProduct)
+                }
+            }
+            missing = missing.filterNot(products::containsKey)
+        }
+        if (missing.isNotEmpty()) {
+            firebaseHelper.getProductsByIds(missing).await().forEach { products[it.id] = it }
+        }
+
+        orders.forEach { order ->
+            order.lineItems = order.items.orEmpty().map { item ->
+                val product = products[item.productId]
+                // Price is what was paid; deleted products keep their line without a name
+                CartItem(
+                    item.productId,
+                    product?.name ?: "",
+                    item.unitPrice,
+                    product?.imageUrl ?: "",
+                    item.quantity
+                )
+            }
+        }
+    }
+
+    suspend fun hydrateItems(order: Order): Order {
+        hydrateItems(listOf(order))
+        return order
+    }
+
+    private fun orderSnapshots(orderId: String): Flow<Order> = callbackFlow {
+        val registration = firebaseHelper.addOrderListener(orderId) { snapshot, error ->
+            if (error != null) {
+                close(error)
+                return@addOrderListener
+            }
+            val order = snapshot?.toObject(Order::class.java)
+            if (order == null) {
+                close(NoSuchElementException("Order not found"))
+                return@addOrderListener
+            }
+            if (order.orderId == null) {
+                order.orderId = snapshot.id
+            }
+            trySend(order)
+        }
+        awaitClose { registration.remove() }
+    }
+
+    companion object {
+        private const val ORDER_LISTENER_STOP_TIMEOUT_MS = 5000L
+        private const val BULK_STATUS_PAGE_SIZE = 1000L
+        // Stays under SQLite's bound parameter limit for IN queries
+        private const val MAX_SQL_VARIABLES = 900
+
+        @Volatile
+        private var INSTANCE: OrderRepository? = null
+
+        fun getInstance(context: Context): OrderRepository {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: OrderRepository(
+                    AppDatabase.getInstance(context).productDao(),
+                    FirebaseHelper.getInstance()
+                ).also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.myshop.data.repository
+
+import com.example.myshop.models.DailyOrderStats
+import com.example.myshop.models.Money
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.Resource
+import com.google.firebase.firestore.DocumentSnapshot
+import kotlinx.coroutines.tasks.await
+import java.util.Date
+
+// Admin dashboard figures. Daily totals come from the counter shards written alongside
+// each order, so a month costs a few hundred small reads however many orders it holds.
+class OrderStatsRepository(
+    private val firebaseHelper: FirebaseHelper = FirebaseHelper.getInstance()
+) {
+
+    // One entry per day that had orders, oldest first
+    suspend fun getDailyStats(from: Date, to: Date): Resource<List<DailyOrderStats>> {
+        return try {
+            val snapshot = firebaseHelper.getOrderStats(
+                FirebaseHelper.getStatsDay(from),
+                FirebaseHelper.getStatsDay(to)
+            ).await()
+
+            val stats = snapshot.documents
+                .groupBy { it.getString("day") ?: "" }
+                .map { (day, shards) ->
+                    val statusCounts = HashMap<String, Long>()
+                    shards.forEach { shard ->
+                        (shard.get("statusCounts") as? Map<*, *>)?.forEach { (status, count) ->
+                            if (status is String && count is Number) {
+                                statusCounts[status] = (statusCounts[status] ?: 0L) + count.toLong()
+                            }
+                        }
+                    }
+                    DailyOrderStats(
+                        day = day,
+                        orderCount = shards.sumOf { it.getLong("orderCount") ?: 0L },
+                        revenue = Money.of(shards.sumOf { shardRevenueCents(it) }),
+                        statusCounts = statusCounts
+                    )
+                }
+                .sortedBy { it.day }
+            Resource.Success(stats)
+        } catch (e: Exception) {
+            Resource.Error("Failed to load order statistics: ${e.message}", e)
+        }
+    }
+
+    suspend fun countOrders(status: String): Resource<Long> {
+        return try {
+            Resource.Success(firebaseHelper.countOrdersByStatus(status).await().count)
+        } catch (e: Exception) {
+            Resource.Error("Failed to count orders: ${e.message}", e)
+        }
+    }
+
+    suspend fun getRevenue(startDate: Date, endDate: Date): Resource<Money> {
+        return try {
+            Resource.Success(Money.of(firebaseHelper.sumOrderTotals(startDate, endDate).await()))
+        } catch (e: Exception) {
+            Resource.Error("Failed to load revenue: ${e.message}", e)
+        }
+    }
+
+    // Shards written before revenue was kept in minor units also carry a decimal amount
+    private fun shardRevenueCents(shard: DocumentSnapshot): Long {
+        val legacyRevenue = shard.getDouble("revenue") ?: 0.0
+        return (shard.getLong("revenueCents") ?: 0L) +
+                Money.toMinorUnits(legacyRevenue, Money.DEFAULT_CURRENCY)
+    }
+}
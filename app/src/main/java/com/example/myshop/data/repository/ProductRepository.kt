@@ -0,0 +1,110 @@
+package com.example.myshop.data.repository
+
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.map
+import com.example.myshop.data.dao.ProductDao
+import com.example.myshop.data.paging.ProductRemoteMediator
+import com.example.myshop.data.search.ProductSearchIndex
+import com.example.myshop.data.sync.ProductSyncManager
+import com.example.myshop.models.Product
+import com.example.myshop.models.ProductEntity
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.PreferenceHelper
+import com.example.myshop.utils.Resource
+import com.example.myshop.utils.SearchTokenizer
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.tasks.await
+import kotlinx.coroutines.withContext
+
+class ProductRepository(
+    private val productDao: ProductDao,
+    preferenceHelper: PreferenceHelper,
+    private val firebaseHelper: FirebaseHelper = FirebaseHelper.getInstance()
+) {
+    private val syncManager = ProductSyncManager(productDao, preferenceHelper, firebaseHelper)
+    private val searchIndex = ProductSearchIndex.getInstance()
+
+    // Catalog Paging (served from Room, refreshed by delta sync)
+    @OptIn(ExperimentalPagingApi::class)
+    fun getProducts(): Flow<PagingData<Product>> = Pager(
+        config = PagingConfig(
+            pageSize = Constants.PAGE_SIZE,
+            initialLoadSize = Constants.PAGE_SIZE,
+            enablePlaceholders = false
+        ),
+        remoteMediator = ProductRemoteMediator(syncManager),
+        pagingSourceFactory = { productDao.getProductsPagingSource() }
+    ).flow.map { pagingData ->
+        pagingData.map { entity ->
+            // Rows shown in the grid are what the detail screen opens next
+            entity.toProduct().also(firebaseHelper::cacheProduct)
+        }
+    }
+
+    // Single product: memory, then Room, then Firestore
+    suspend fun getProduct(productId: String): Resource<Product> {
+        return try {
+            firebaseHelper.getCachedProduct(productId)?.let { product ->
+                return Resource.Success(product)
+            }
+
+            val cached = productDao.getProductById(productId)
+            if (cached != null) {
+                return Resource.Success(cached.toProduct().also(firebaseHelper::cacheProduct))
+            }
+
+            val product = firebaseHelper.getProductById(productId).await()
+            if (product == null) {
+                Resource.Error("Product not found")
+            } else {
+                productDao.insertProduct(ProductEntity.fromProduct(product))
+                searchIndex.invalidate()
+                Resource.Success(product)
+            }
+        } catch (e: Exception) {
+            Resource.Error("Failed to load product details: ${e.message}", e)
+        }
+    }
+
+    // Served from the local index once the catalog is cached, Firestore otherwise
+    suspend fun searchProducts(query: String): Resource<List<Product>> {
+        return try {
+            if (productDao.getProductCount() > 0) {
+                // Index build and lookup stay off the main thread
+                val ids = withContext(Dispatchers.Default) {
+                    searchIndex.search(productDao, query, Constants.SEARCH_RESULT_LIMIT)
+                }
+                val products = if (ids.isEmpty()) emptyList() else productDao.getProductsByIds(ids)
+                Resource.Success(products.map(ProductEntity::toProduct).also(firebaseHelper::cacheProducts))
+            } else {
+                Resource.Success(searchRemote(query))
+            }
+        } catch (e: Exception) {
+            Resource.Error("Failed to search products: ${e.message}", e)
+        }
+    }
+
+    private suspend fun searchRemote(query: String): List<Product> {
+        val generation = firebaseHelper.productCacheGeneration
+        val snapshot = firebaseHelper.searchProducts(query).await() ?: return emptyList()
+        // Firestore matched one word; the rest are checked against the stored keywords
+        val queryTokens = SearchTokenizer.tokenize(query).map { it.take(SearchTokenizer.MAX_PREFIX_LENGTH) }
+        return snapshot.documents.mapNotNull { document ->
+            document.toObject(Product::class.java)?.also { product ->
+                if (product.id == null) {
+                    product.id = document.id
+                }
+            }
+        }.filter { product ->
+            product.searchKeywords.orEmpty().containsAll(queryTokens)
+        }.also { products -> firebaseHelper.cacheProducts(products, generation) }
+    }
+
+    suspend fun syncProducts(): Resource<Int> = syncManager.sync()
+}
@@ -0,0 +1,82 @@
+package com.example.myshop.data.search
+
+import com.example.myshop.data.dao.ProductDao
+import com.example.myshop.utils.SearchTokenizer
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.util.TreeMap
+
+data class SearchableProduct(
+    val id: String,
+    val name: String,
+    val category: String
+)
+
+// In-memory inverted index over the Room catalog. Words are kept sorted so a prefix
+// lookup is a tailMap walk instead of a scan over every product. Built lazily on the
+// first search and dropped whenever a sync changes the products table.
+class ProductSearchIndex private constructor() {
+
+    private val mutex = Mutex()
+
+    @Volatile
+    private var index: TreeMap<String, MutableSet<String>>? = null
+
+    @Volatile
+    private var generation = 0
+
+    // Ids of products whose name or category has a word starting with every query word
+    suspend fun search(productDao: ProductDao, query: String, limit: Int): List<String> {
+        val queryTokens = SearchTokenizer.tokenize(query).distinct()
+        if (queryTokens.isEmpty()) return emptyList()
+
+        val words = index ?: build(productDao)
+        var result: Set<String>? = null
+
+        // Longest words first, they match the fewest products
+        for (token in queryTokens.sortedByDescending { it.length }) {
+            val matches = LinkedHashSet<String>()
+            for ((word, ids) in words.tailMap(token)) {
+                if (!word.startsWith(token)) break
+                matches.addAll(ids)
+            }
+            result = result?.intersect(matches) ?: matches
+            if (result.isEmpty()) break
+        }
+        return result.orEmpty().take(limit)
+    }
+
+    @Synchronized
+    fun invalidate() {
+        generation++
+        index = null
+    }
+
+    private suspend fun build(productDao: ProductDao): TreeMap<String, MutableSet<String>> = mutex.withLock {
+        index?.let { return it }
+
+        val builtFor = generation
+        val words = TreeMap<String, MutableSet<String>>()
+        productDao.getSearchableProducts().forEach { product ->
+            (SearchTokenizer.tokenize(product.name) + SearchTokenizer.tokenize(product.category)).forEach { word ->
+                words.getOrPut(word) { LinkedHashSet() }.add(product.id)
+            }
+        }
+        // A sync that finished mid-build leaves this copy stale, so it is used once but not kept
+        if (builtFor == generation) {
+            index = words
+        }
+        words
+    }
+
+    companion object {
+        @Volatile
+        private var INSTANCE: ProductSearchIndex? = null
+
+        fun getInstance(): ProductSearchIndex {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: ProductSearchIndex().also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.myshop.data.sync
+
+import android.content.Context
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.example.myshop.data.AppDatabase
+import com.example.myshop.data.repository.CartRepository
+import com.example.myshop.utils.Resource
+import java.util.concurrent.TimeUnit
+
+// Pushes a user's pending cart edits once the cart screen has gone away, so leaving it
+// can't cancel the final flush. The edits are already in Room; failures are retried.
+class CartFlushWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    override suspend fun doWork(): Result {
+        val userId = inputData.getString(KEY_USER_ID) ?: return Result.failure()
+        val repository = CartRepository(AppDatabase.getInstance(applicationContext).cartDao())
+        return if (repository.flush(userId) is Resource.Success) Result.success() else Result.retry()
+    }
+
+    companion object {
+        private const val WORK_NAME_PREFIX = "cart_flush_"
+        private const val KEY_USER_ID = "user_id"
+        private const val BACKOFF_SECONDS = 30L
+
+        // A newer flush for the same user replaces one still waiting; it reads every pending edit anyway
+        fun enqueue(context: Context, userId: String) {
+            val request = OneTimeWorkRequestBuilder<CartFlushWorker>()
+                .setInputData(workDataOf(KEY_USER_ID to userId))
+                .setConstraints(
+                    Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build()
+                )
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build()
+
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME_PREFIX + userId, ExistingWorkPolicy.REPLACE, request)
+        }
+    }
+}
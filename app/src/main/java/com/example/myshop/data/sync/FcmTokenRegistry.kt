@@ -0,0 +1,101 @@
+package com.example.myshop.data.sync
+
+import android.content.Context
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.PreferenceHelper
+import com.google.firebase.messaging.FirebaseMessaging
+import kotlinx.coroutines.tasks.await
+import java.util.concurrent.TimeUnit
+
+// Keeps users/{uid}.fcmToken in step with this device's token. The token and the user it
+// was last written for are kept in preferences, so launches and repeated onNewToken calls
+// with an unchanged token cost nothing; real changes are written by FcmTokenSyncWorker,
+// which WorkManager retries with backoff until the write lands.
+class FcmTokenRegistry private constructor(context: Context) {
+
+    private val appContext = context.applicationContext
+    private val preferenceHelper = PreferenceHelper.getInstance(appContext)
+    private val firebaseHelper = FirebaseHelper.getInstance()
+
+    // The current device token without a network round trip, once one has been seen
+    val token: String?
+        get() = preferenceHelper.fcmToken
+
+    fun onNewToken(token: String) {
+        if (token == preferenceHelper.fcmToken && isSyncedFor(currentUserId())) return
+        preferenceHelper.fcmToken = token
+        preferenceHelper.fcmTokenSyncedUserId = null
+        scheduleSync()
+    }
+
+    // Called on launch and after sign-in; only schedules work if something changed
+    fun ensureRegistered() {
+        val userId = currentUserId() ?: return
+        val cachedToken = preferenceHelper.fcmToken
+        if (cachedToken == null) {
+            FirebaseMessaging.getInstance().token.addOnSuccessListener(::onNewToken)
+        } else if (!isSyncedFor(userId)) {
+            scheduleSync()
+        }
+    }
+
+    // Runs on the worker; true once Firestore holds the current token or nothing is due
+    suspend fun sync(): Boolean {
+        val userId = currentUserId() ?: return true
+        val token = preferenceHelper.fcmToken ?: return true
+        if (isSyncedFor(userId)) return true
+
+        return try {
+            firebaseHelper.updateFCMToken(userId, token).await()
+            // A newer token may have arrived during the write; leave that one pending
+            if (preferenceHelper.fcmToken == token) {
+                preferenceHelper.fcmTokenSyncedUserId = userId
+            }
+            true
+        } catch (e: Exception) {
+            false
+        }
+    }
+
+    private fun isSyncedFor(userId: String?): Boolean =
+        userId != null && preferenceHelper.fcmTokenSyncedUserId == userId
+
+    private fun currentUserId(): String? = firebaseHelper.getCurrentUser()?.uid
+
+    private fun scheduleSync() {
+        if (currentUserId() == null) return
+
+        val request = OneTimeWorkRequestBuilder<FcmTokenSyncWorker>()
+            .setConstraints(
+                Constraints.Builder()
+                    .setRequiredNetworkType(NetworkType.CONNECTED)
+                    .build()
+            )
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, SYNC_BACKOFF_SECONDS, TimeUnit.SECONDS)
+            .build()
+
+        // A newer token replaces any write still waiting for its turn
+        WorkManager.getInstance(appContext)
+            .enqueueUniqueWork(SYNC_WORK_NAME, ExistingWorkPolicy.REPLACE, request)
+    }
+
+    companion object {
+        private const val SYNC_WORK_NAME = "fcm_token_sync"
+        private const val SYNC_BACKOFF_SECONDS = 30L
+
+        @Volatile
+        private var INSTANCE: FcmTokenRegistry? = null
+
+        fun getInstance(context: Context): FcmTokenRegistry {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: FcmTokenRegistry(context).also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.myshop.data.sync
+
+import android.content.Context
+import androidx.work.CoroutineWorker
+import androidx.work.WorkerParameters
+
+// Writes the pending FCM token; failures go back to WorkManager for a backed-off retry
+class FcmTokenSyncWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    override suspend fun doWork(): Result {
+        return if (FcmTokenRegistry.getInstance(applicationContext).sync()) {
+            Result.success()
+        } else {
+            Result.retry()
+        }
+    }
+}
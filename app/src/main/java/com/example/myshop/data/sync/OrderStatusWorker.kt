@@ -0,0 +1,91 @@
+package com.example.myshop.data.sync
+
+import android.content.Context
+import androidx.lifecycle.LiveData
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkInfo
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.example.myshop.data.repository.OrderRepository
+import com.example.myshop.utils.Resource
+
+// Runs the admin's bulk status move outside any screen, so leaving the orders console
+// doesn't cancel it halfway. Orders already moved drop out of the query, so a rerun after
+// a failure picks up where this one stopped.
+class OrderStatusWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    override suspend fun doWork(): Result {
+        val fromStatus = inputData.getString(KEY_FROM_STATUS) ?: return Result.failure()
+        val toStatus = inputData.getString(KEY_TO_STATUS) ?: return Result.failure()
+
+        val result = OrderRepository.getInstance(applicationContext).advanceOrders(
+            fromStatus,
+            toStatus,
+            inputData.getString(KEY_NOTIFICATION_TITLE).orEmpty(),
+            inputData.getString(KEY_NOTIFICATION_MESSAGE).orEmpty()
+        ) { updated -> setProgress(workDataOf(KEY_UPDATED to updated)) }
+
+        return when (result) {
+            is Resource.Success -> Result.success(workDataOf(KEY_UPDATED to (result.data ?: 0)))
+            else -> Result.failure(workDataOf(KEY_ERROR to result.message))
+        }
+    }
+
+    companion object {
+        private const val WORK_NAME = "advance_orders"
+
+        private const val KEY_FROM_STATUS = "from_status"
+        private const val KEY_TO_STATUS = "to_status"
+        private const val KEY_NOTIFICATION_TITLE = "notification_title"
+        private const val KEY_NOTIFICATION_MESSAGE = "notification_message"
+        private const val KEY_UPDATED = "updated"
+        private const val KEY_ERROR = "error"
+
+        // One move at a time; starting another while one runs is ignored
+        fun enqueue(
+            context: Context,
+            fromStatus: String,
+            toStatus: String,
+            notificationTitle: String,
+            notificationMessage: String
+        ) {
+            val request = OneTimeWorkRequestBuilder<OrderStatusWorker>()
+                .setInputData(
+                    workDataOf(
+                        KEY_FROM_STATUS to fromStatus,
+                        KEY_TO_STATUS to toStatus,
+                        KEY_NOTIFICATION_TITLE to notificationTitle,
+                        KEY_NOTIFICATION_MESSAGE to notificationMessage
+                    )
+                )
+                .setConstraints(
+                    Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build()
+                )
+                .build()
+
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, request)
+        }
+
+        fun observe(context: Context): LiveData<List<WorkInfo>> =
+            WorkManager.getInstance(context).getWorkInfosForUniqueWorkLiveData(WORK_NAME)
+
+        // Orders moved so far while running, the total once finished
+        fun resourceOf(info: WorkInfo): Resource<Int> = when (info.state) {
+            WorkInfo.State.SUCCEEDED -> Resource.Success(info.outputData.getInt(KEY_UPDATED, 0))
+            WorkInfo.State.FAILED, WorkInfo.State.CANCELLED ->
+                Resource.Error(info.outputData.getString(KEY_ERROR) ?: "Order update stopped")
+            else -> Resource.Loading(info.progress.getInt(KEY_UPDATED, 0))
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.myshop.data.sync
+
+import com.example.myshop.data.dao.ProductDao
+import com.example.myshop.data.search.ProductSearchIndex
+import com.example.myshop.models.Product
+import com.example.myshop.models.ProductEntity
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.PreferenceHelper
+import com.example.myshop.utils.Resource
+import com.example.myshop.utils.tryAsResourceSuspend
+import com.google.firebase.firestore.DocumentSnapshot
+import com.google.firebase.firestore.QuerySnapshot
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.tasks.await
+import kotlinx.coroutines.withContext
+import java.util.Date
+
+// Keeps the local product table in step with the Firestore catalog. Normal syncs only
+// download products whose server updatedAt is newer than lastSyncTime. Deletions leave
+// no trace in a delta query, so a full download runs on first launch and then every
+// FULL_SYNC_INTERVAL to prune products that no longer exist.
+class ProductSyncManager(
+    private val productDao: ProductDao,
+    private val preferenceHelper: PreferenceHelper,
+    private val firebaseHelper: FirebaseHelper = FirebaseHelper.getInstance()
+) {
+    private val mutex = Mutex()
+    private val searchIndex = ProductSearchIndex.getInstance()
+
+    // Returns the number of products written locally
+    suspend fun sync(forceFull: Boolean = false): Resource<Int> = mutex.withLock {
+        withContext(Dispatchers.IO) {
+            tryAsResourceSuspend {
+                val fullSyncDue = System.currentTimeMillis() - preferenceHelper.lastFullSyncTime >
+                        Constants.FULL_SYNC_INTERVAL
+                if (forceFull || fullSyncDue) {
+                    fullSync()
+                } else {
+                    deltaSync()
+                }
+            }
+        }
+    }
+
+    private suspend fun fullSync(): Int {
+        val syncStart = System.currentTimeMillis()
+        var lastVisible: DocumentSnapshot? = null
+        var latestUpdate = 0L
+        var count = 0
+
+        do {
+            val snapshot = firebaseHelper
+                .getProductsPage(lastVisible, Constants.SYNC_BATCH_SIZE.toLong())
+                .await()
+            latestUpdate = maxOf(latestUpdate, saveBatch(snapshot, syncStart))
+            count += snapshot.size()
+            lastVisible = snapshot.documents.lastOrNull()
+        } while (snapshot.size() == Constants.SYNC_BATCH_SIZE)
+
+        // Anything not seen during this pass was deleted remotely
+        productDao.deleteProductsSyncedBefore(syncStart)
+        searchIndex.invalidate()
+
+        preferenceHelper.lastSyncTime = maxOf(latestUpdate, preferenceHelper.lastSyncTime)
+        preferenceHelper.lastFullSyncTime = syncStart
+        return count
+    }
+
+    private suspend fun deltaSync(): Int {
+        val since = Date(preferenceHelper.lastSyncTime)
+        val syncTime = System.currentTimeMillis()
+        var lastVisible: DocumentSnapshot? = null
+        var latestUpdate = preferenceHelper.lastSyncTime
+        var count = 0
+
+        do {
+            val snapshot = firebaseHelper
+                .getProductsUpdatedSince(since, lastVisible, Constants.SYNC_BATCH_SIZE.toLong())
+                .await()
+            latestUpdate = maxOf(latestUpdate, saveBatch(snapshot, syncTime))
+            count += snapshot.size()
+            lastVisible = snapshot.documents.lastOrNull()
+        } while (snapshot.size() == Constants.SYNC_BATCH_SIZE)
+
+        if (count > 0) {
+            searchIndex.invalidate()
+        }
+
+        // Watermark is server time, so device clock skew cannot skip updates
+        preferenceHelper.lastSyncTime = latestUpdate
+        return count
+    }
+
+    // Writes one page of products and returns the newest updatedAt it contained
+    private suspend fun saveBatch(snapshot: QuerySnapshot, syncedAt: Long): Long {
+        val entities = snapshot.documents.mapNotNull { document ->
+            document.toObject(Product::class.java)?.let { product ->
+                if (product.id == null) {
+                    product.id = document.id
+                }
+                ProductEntity.fromProduct(product, syncedAt)
+            }
+        }
+        if (entities.isNotEmpty()) {
+            productDao.insertProducts(entities)
+        }
+        return entities.maxOfOrNull { it.updatedAt } ?: 0L
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.myshop.images
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Matrix
+import android.net.Uri
+import android.os.Build
+import androidx.exifinterface.media.ExifInterface
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.PreferenceHelper
+import com.example.myshop.utils.Resource
+import com.example.myshop.utils.Utils
+import com.google.firebase.storage.StorageMetadata
+import com.google.firebase.storage.StorageReference
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import kotlinx.coroutines.tasks.await
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import kotlin.math.max
+import kotlin.math.roundToInt
+
+// Turns a picked photo into WebP variants and uploads them. The source is decoded once,
+// subsampled to just above the largest variant so an 8 MB camera JPEG never lands in
+// memory at full size, then scaled down and encoded per variant off the main thread.
+// Encoded files are staged in the cache and uploaded in parallel as resumable sessions;
+// a retry after a failure or process death picks up the same files and sessions.
+class ImageUploader private constructor(context: Context) {
+
+    private val appContext = context.applicationContext
+    private val firebaseHelper = FirebaseHelper.getInstance()
+    private val preferenceHelper = PreferenceHelper.getInstance(appContext)
+    private val stagingDir = File(appContext.cacheDir, STAGING_DIR)
+    private val uploadPermits = Semaphore(Constants.MAX_PARALLEL_UPLOADS)
+
+    // Cancellation is rethrown rather than reported as a failed upload, so the caller's
+    // scope actually stops and the paused sessions are resumed next time
+    suspend fun uploadProductImage(productId: String, source: Uri): Resource<Map<ImageVariant, String>> = try {
+        val urls = uploadVariants(source, PRODUCT_VARIANTS) { firebaseHelper.getProductImageRef(productId, it) }
+        firebaseHelper.updateProductImages(productId, urls).await()
+        Resource.success(urls)
+    } catch (e: CancellationException) {
+        throw e
+    } catch (e: Exception) {
+        Resource.error(e.message ?: "Unknown error occurred", e)
+    }
+
+    suspend fun uploadProfileImage(userId: String, source: Uri): Resource<Map<ImageVariant, String>> = try {
+        val urls = uploadVariants(source, PROFILE_VARIANTS) { firebaseHelper.getUserProfileImageRef(userId, it) }
+        firebaseHelper.updateUserProfileImages(userId, urls).await()
+        Resource.success(urls)
+    } catch (e: CancellationException) {
+        throw e
+    } catch (e: Exception) {
+        Resource.error(e.message ?: "Unknown error occurred", e)
+    }
+
+    private suspend fun uploadVariants(
+        source: Uri,
+        variants: List<ImageVariant>,
+        refFor: (ImageVariant) -> StorageReference
+    ): Map<ImageVariant, String> {
+        val refs = variants.associateWith(refFor)
+        val staged = stage(source, refs)
+        return coroutineScope {
+            staged.map { (variant, file) ->
+                async { variant to upload(refs.getValue(variant), file) }
+            }.awaitAll().toMap()
+        }
+    }
+
+    // Staged files are named after the source and destination together, so picking a
+    // different photo for the same product never resumes the old one
+    private suspend fun stage(
+        source: Uri,
+        refs: Map<ImageVariant, StorageReference>
+    ): Map<ImageVariant, File> = withContext(Dispatchers.Default) {
+        val files = refs.mapValues { (_, ref) ->
+            File(stagingDir, "${Integer.toHexString("$source|${ref.path}".hashCode())}.webp")
+        }
+        val missing = files.filterValues { !it.exists() }.keys
+        if (missing.isEmpty()) return@withContext files
+
+        val decoded = decode(source, missing.maxOf { it.maxDimension })
+        try {
+            missing.sortedByDescending { it.maxDimension }.forEach { variant ->
+                val scaled = scaleDown(decoded, variant.maxDimension)
+                try {
+                    encode(scaled, files.getValue(variant))
+                } finally {
+                    if (scaled !== decoded) scaled.recycle()
+                }
+            }
+        } finally {
+            decoded.recycle()
+        }
+        files
+    }
+
+    private fun decode(source: Uri, maxDimension: Int): Bitmap {
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        open(source).use { BitmapFactory.decodeStream(it, null, bounds) }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw IOException("Not an image: $source")
+        }
+
+        val longEdge = max(bounds.outWidth, bounds.outHeight)
+        val sampleSize = sampleSizeFor(longEdge, maxDimension)
+        val sampledEdge = longEdge / sampleSize
+        val options = BitmapFactory.Options().apply {
+            inSampleSize = sampleSize
+            // Subsampling stops at the last power of two above the target; density scaling
+            // takes the decode the rest of the way, so no bitmap larger than it is allocated
+            if (sampledEdge > maxDimension) {
+                inScaled = true
+                inDensity = sampledEdge
+                inTargetDensity = maxDimension
+            }
+        }
+        val bitmap = open(source).use { BitmapFactory.decodeStream(it, null, options) }
+            ?: throw IOException("Could not decode $source")
+        return applyOrientation(source, bitmap)
+    }
+
+    // Camera photos are stored sideways with an EXIF flag; re-encoding drops the flag
+    private fun applyOrientation(source: Uri, bitmap: Bitmap): Bitmap {
+        val degrees = open(source).use { ExifInterface(it).rotationDegrees }
+        if (degrees == 0) return bitmap
+
+        val matrix = Matrix().apply { postRotate(degrees.toFloat()) }
+        val rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.width, bitmap.height, matrix, true)
+        if (rotated !== bitmap) bitmap.recycle()
+        return rotated
+    }
+
+    private fun scaleDown(bitmap: Bitmap, maxDimension: Int): Bitmap {
+        val longEdge = max(bitmap.width, bitmap.height)
+        if (longEdge <= maxDimension) return bitmap
+
+        val scale = maxDimension.toFloat() / longEdge
+        return Bitmap.createScaledBitmap(
+            bitmap,
+            (bitmap.width * scale).roundToInt(),
+            (bitmap.height * scale).roundToInt(),
+            true
+        )
+    }
+
+    // Written under a temporary name so a half-written file is never mistaken for a staged one.
+    // Busy photos that come out over MAX_IMAGE_SIZE are re-encoded at lower quality first.
+    private fun encode(bitmap: Bitmap, file: File) {
+        stagingDir.mkdirs()
+        val partial = File(file.path + ".part")
+        var quality = Constants.IMAGE_UPLOAD_QUALITY
+        while (true) {
+            FileOutputStream(partial).use { bitmap.compress(WEBP_FORMAT, quality, it) }
+            if (Utils.isValidImageSize(partial.length())) break
+            if (quality <= Constants.MIN_IMAGE_UPLOAD_QUALITY) {
+                partial.delete()
+                throw IOException("Image is still too large after compression")
+            }
+            quality = max(quality - IMAGE_QUALITY_STEP, Constants.MIN_IMAGE_UPLOAD_QUALITY)
+        }
+        if (!partial.renameTo(file)) {
+            partial.delete()
+            throw IOException("Could not stage ${file.name}")
+        }
+    }
+
+    private suspend fun upload(ref: StorageReference, file: File): String = uploadPermits.withPermit {
+        val sessionKey = file.name
+        var session = preferenceHelper.getUploadSession(sessionKey)?.let(Uri::parse)
+
+        while (true) {
+            val task = if (session != null) {
+                ref.putFile(Uri.fromFile(file), UPLOAD_METADATA, session)
+            } else {
+                ref.putFile(Uri.fromFile(file), UPLOAD_METADATA)
+            }
+            if (session == null) {
+                task.addOnProgressListener { snapshot ->
+                    if (preferenceHelper.getUploadSession(sessionKey) == null) {
+                        snapshot.uploadSessionUri?.let { preferenceHelper.setUploadSession(sessionKey, it.toString()) }
+                    }
+                }
+            }
+
+            try {
+                task.await()
+                break
+            } catch (e: CancellationException) {
+                // Paused rather than cancelled, so the session stays valid for the next attempt
+                task.pause()
+                throw e
+            } catch (e: Exception) {
+                // Sessions expire after a week; start that variant over once
+                if (session == null) throw e
+                session = null
+                preferenceHelper.setUploadSession(sessionKey, null)
+            }
+        }
+
+        preferenceHelper.setUploadSession(sessionKey, null)
+        file.delete()
+        ref.downloadUrl.await().toString()
+    }
+
+    private fun open(source: Uri) =
+        appContext.contentResolver.openInputStream(source) ?: throw IOException("Cannot open $source")
+
+    companion object {
+        private const val STAGING_DIR = "image_uploads"
+        private const val IMAGE_QUALITY_STEP = 10
+
+        private val PRODUCT_VARIANTS = listOf(ImageVariant.THUMBNAIL, ImageVariant.DETAIL, ImageVariant.FULL)
+        private val PROFILE_VARIANTS = listOf(ImageVariant.THUMBNAIL, ImageVariant.DETAIL)
+
+        private val UPLOAD_METADATA = StorageMetadata.Builder()
+            .setContentType("image/webp")
+            .build()
+
+        @Suppress("DEPRECATION")
+        private val WEBP_FORMAT = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            Bitmap.CompressFormat.WEBP_LOSSY
+        } else {
+            Bitmap.CompressFormat.WEBP
+        }
+
+        // Largest power of two that keeps the long edge at or above the target, so
+        // variants are only ever scaled down; decode() scales the remainder
+        private fun sampleSizeFor(longEdge: Int, target: Int): Int {
+            var sampleSize = 1
+            while (longEdge / (sampleSize * 2) >= target) {
+                sampleSize *= 2
+            }
+            return sampleSize
+        }
+
+        @Volatile
+        private var INSTANCE: ImageUploader? = null
+
+        fun getInstance(context: Context): ImageUploader {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: ImageUploader(context).also { INSTANCE = it }
+            }
+        }
+    }
+}
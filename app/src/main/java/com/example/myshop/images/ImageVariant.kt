@@ -0,0 +1,11 @@
+package com.example.myshop.images
+
+// Renditions written by ImageUploader, each a WebP no larger than maxDimension on its long
+// edge, stored beside the legacy products/{id}.jpg as {id}{suffix}.webp
+enum class ImageVariant(val maxDimension: Int, val suffix: String) {
+    THUMBNAIL(400, "_thumb"),
+    DETAIL(1080, "_detail"),
+    FULL(2048, "_full");
+
+    fun fileName(id: String) = "$id$suffix.webp"
+}
@@ -0,0 +1,43 @@
+package com.example.myshop.images
+
+import android.content.Context
+import com.bumptech.glide.GlideBuilder
+import com.bumptech.glide.annotation.GlideModule
+import com.bumptech.glide.load.DecodeFormat
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory
+import com.bumptech.glide.load.engine.cache.LruResourceCache
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator
+import com.bumptech.glide.module.AppGlideModule
+import com.bumptech.glide.request.RequestOptions
+
+// Cache budgets shared by every image in the app. The memory cache holds a few screens of
+// the product grid so flinging back up doesn't decode again, and the disk cache keeps the
+// catalogue's thumbnails across launches. Full-colour decoding stays the default; the grid
+// and cart opt into RGB_565 through ProductImages.
+@GlideModule
+class MyshopGlideModule : AppGlideModule() {
+
+    override fun applyOptions(context: Context, builder: GlideBuilder) {
+        val sizes = MemorySizeCalculator.Builder(context)
+            .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+            .setBitmapPoolScreens(BITMAP_POOL_SCREENS)
+            .build()
+
+        builder
+            .setMemoryCache(LruResourceCache(sizes.memoryCacheSize.toLong()))
+            .setBitmapPool(LruBitmapPool(sizes.bitmapPoolSize.toLong()))
+            .setDiskCache(InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_BYTES))
+            .setDefaultRequestOptions(RequestOptions().format(DecodeFormat.PREFER_ARGB_8888))
+    }
+
+    // All Glide dependencies are configured here, so skip the legacy manifest scan
+    override fun isManifestParsingEnabled() = false
+
+    companion object {
+        private const val MEMORY_CACHE_SCREENS = 3f
+        private const val BITMAP_POOL_SCREENS = 4f
+        private const val DISK_CACHE_DIR = "image_cache"
+        private const val DISK_CACHE_BYTES = 150L * 1024 * 1024
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.myshop.images
+
+import android.graphics.drawable.Drawable
+import com.bumptech.glide.RequestBuilder
+import com.bumptech.glide.RequestManager
+import com.bumptech.glide.load.DecodeFormat
+import com.bumptech.glide.request.RequestOptions
+import com.example.myshop.R
+import com.example.myshop.models.Product
+
+// Builds every product image request, so a preload and the bind that follows it produce
+// the same cache key. Thumbnails decode as RGB_565 - product shots are opaque and it
+// halves their memory - and fall back to the original when no thumbnail was uploaded.
+object ProductImages {
+
+    private val thumbnailOptions = RequestOptions()
+        .format(DecodeFormat.PREFER_RGB_565)
+        .placeholder(R.drawable.placeholder_product)
+        .error(R.drawable.error_product)
+        .centerCrop()
+
+    private val detailOptions = RequestOptions()
+        .placeholder(R.drawable.placeholder_product)
+        .error(R.drawable.error_product)
+
+    fun thumbnailUrl(product: Product): String? =
+        product.thumbnailUrl?.takeIf { it.isNotEmpty() } ?: product.imageUrl
+
+    fun detailUrl(product: Product): String? =
+        product.detailImageUrl?.takeIf { it.isNotEmpty() } ?: product.imageUrl
+
+    fun thumbnail(requests: RequestManager, url: String?): RequestBuilder<Drawable> =
+        requests.load(url).apply(thumbnailOptions)
+
+    // Shows the thumbnail the grid has usually cached already while the detail image loads
+    fun detail(requests: RequestManager, product: Product): RequestBuilder<Drawable> =
+        requests.load(detailUrl(product))
+            .apply(detailOptions)
+            .thumbnail(thumbnail(requests, thumbnailUrl(product)))
+}
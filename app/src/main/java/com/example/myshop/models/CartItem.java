@@ -1,26 +1,31 @@
 package com.example.myshop.models;
 
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.PropertyName;
 import java.io.Serializable;
 
 public class CartItem implements Serializable {
     private String productId;
     private String productName;
-    private double productPrice;
+    private long productPriceCents; // Minor units of currency
+    private String currency = Money.DEFAULT_CURRENCY;
     private String productImage;
+    private String category; // Drives category promotions and tax
     private int quantity;
-    private double totalPrice;
+    private long totalPriceCents;
 
     // Empty constructor for Firebase
     public CartItem() {}
 
-    public CartItem(String productId, String productName, double productPrice, 
+    public CartItem(String productId, String productName, Money productPrice, 
                    String productImage, int quantity) {
         this.productId = productId;
         this.productName = productName;
-        this.productPrice = productPrice;
+        this.productPriceCents = productPrice.getMinorUnits();
+        this.currency = productPrice.getCurrency();
         this.productImage = productImage;
         this.quantity = quantity;
-        this.totalPrice = productPrice * quantity;
+        updateTotalPrice();
     }
 
     // Getters and Setters
@@ -30,34 +35,64 @@ public class CartItem implements Serializable {
     public String getProductName() { return productName; }
     public void setProductName(String productName) { this.productName = productName; }
 
-    public double getProductPrice() { return productPrice; }
-    public void setProductPrice(double productPrice) { 
-        this.productPrice = productPrice;
-        this.totalPrice = this.productPrice * this.quantity;
+    @Exclude
+    public Money getProductPrice() { return Money.of(productPriceCents, currency); }
+    @Exclude
+    public void setProductPrice(Money productPrice) {
+        this.productPriceCents = productPrice.getMinorUnits();
+        this.currency = productPrice.getCurrency();
+        updateTotalPrice();
     }
 
+    public long getProductPriceCents() { return productPriceCents; }
+    public void setProductPriceCents(long productPriceCents) {
+        this.productPriceCents = productPriceCents;
+        updateTotalPrice();
+    }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
     public String getProductImage() { return productImage; }
     public void setProductImage(String productImage) { this.productImage = productImage; }
 
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { 
         this.quantity = quantity;
-        this.totalPrice = this.productPrice * this.quantity;
+        updateTotalPrice();
     }
 
-    public double getTotalPrice() { return totalPrice; }
+    @Exclude
+    public Money getTotalPrice() { return Money.of(totalPriceCents, currency); }
+
+    // Always derived from price and quantity; stored so the server copy is readable alone
+    public long getTotalPriceCents() { return totalPriceCents; }
 
     public void updateTotalPrice() {
-        this.totalPrice = this.productPrice * this.quantity;
+        this.totalPriceCents = this.productPriceCents * this.quantity;
+    }
+
+    // Older carts only have the decimal price. Read in through the setter, never written back.
+    @Exclude
+    public double getLegacyProductPrice() { return Money.toDecimal(productPriceCents, currency); }
+    @PropertyName("productPrice")
+    public void setLegacyProductPrice(double productPrice) {
+        setProductPriceCents(Money.toMinorUnits(productPrice, currency));
     }
 
+    @Exclude
+    public double getLegacyTotalPrice() { return Money.toDecimal(totalPriceCents, currency); }
+
     @Override
     public String toString() {
         return "CartItem{" +
                 "productId='" + productId + '\'' +
                 ", productName='" + productName + '\'' +
                 ", quantity=" + quantity +
-                ", totalPrice=" + totalPrice +
+                ", totalPrice=" + getTotalPrice() +
                 '}';
     }
 }
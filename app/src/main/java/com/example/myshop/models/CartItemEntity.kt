@@ -0,0 +1,47 @@
+package com.example.myshop.models
+
+import androidx.room.Entity
+
+@Entity(
+    tableName = "cart_items",
+    primaryKeys = ["userId", "productId"]
+)
+data class CartItemEntity(
+    val userId: String,
+    val productId: String,
+    val productName: String = "",
+    val productPriceCents: Long = 0,
+    val currency: String = Money.DEFAULT_CURRENCY,
+    val productImage: String = "",
+    val category: String? = null,
+    val quantity: Int = 1,
+    val pendingSync: Boolean = false, // Changed locally, not yet written to Firestore
+    val pendingDelete: Boolean = false, // Removed locally, not yet deleted in Firestore
+    val updatedAt: Long = System.currentTimeMillis()
+) {
+
+    fun toCartItem(): CartItem {
+        return CartItem(productId, productName, Money.of(productPriceCents, currency), productImage, quantity)
+            .also { it.category = category }
+    }
+
+    companion object {
+        fun fromCartItem(
+            userId: String,
+            cartItem: CartItem,
+            pendingSync: Boolean = false
+        ): CartItemEntity {
+            return CartItemEntity(
+                userId = userId,
+                productId = cartItem.productId,
+                productName = cartItem.productName ?: "",
+                productPriceCents = cartItem.productPriceCents,
+                currency = cartItem.currency ?: Money.DEFAULT_CURRENCY,
+                productImage = cartItem.productImage ?: "",
+                category = cartItem.category,
+                quantity = cartItem.quantity,
+                pendingSync = pendingSync
+            )
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.myshop.models
+
+// One day's order totals, summed from that day's counter shards
+data class DailyOrderStats(
+    val day: String,
+    val orderCount: Long = 0,
+    val revenue: Money = Money.ZERO,
+    val statusCounts: Map<String, Long> = emptyMap()
+)
@@ -0,0 +1,16 @@
+package com.example.myshop.models
+
+import androidx.room.Entity
+
+// Local mirror of users/{userId}.favoriteProducts, one row per product
+@Entity(
+    tableName = "favorites",
+    primaryKeys = ["userId", "productId"]
+)
+data class FavoriteEntity(
+    val userId: String,
+    val productId: String,
+    val pendingSync: Boolean = false, // Toggled locally, not yet written to Firestore
+    val pendingDelete: Boolean = false, // Unfavourited locally, not yet removed in Firestore
+    val updatedAt: Long = System.currentTimeMillis()
+)
@@ -0,0 +1,111 @@
+package com.example.myshop.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+// An exact amount as a whole number of minor units (cents for USD) and an ISO 4217
+// currency code. Sums and line totals stay in longs, so they never pick up the rounding
+// error that adding doubles does. Models store the minor units as plain long fields and
+// hand out Money from excluded getters, so Firestore and Room never see this class.
+public final class Money implements Comparable<Money>, Serializable {
+    public static final String DEFAULT_CURRENCY = "USD";
+    public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+    private final long minorUnits;
+    private final String currency;
+
+    private Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money of(long minorUnits) {
+        return of(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money of(long minorUnits, String currency) {
+        if (currency == null) {
+            currency = DEFAULT_CURRENCY;
+        }
+        if (minorUnits == 0 && DEFAULT_CURRENCY.equals(currency)) {
+            return ZERO;
+        }
+        return new Money(minorUnits, currency);
+    }
+
+    // Decimal amounts only come from documents written before prices were stored in
+    // minor units, so the conversion is kept out of the hot path
+    public static long toMinorUnits(double amount, String currency) {
+        return BigDecimal.valueOf(amount)
+                .movePointRight(fractionDigits(currency))
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    public static double toDecimal(long minorUnits, String currency) {
+        return BigDecimal.valueOf(minorUnits).movePointLeft(fractionDigits(currency)).doubleValue();
+    }
+
+    private static int fractionDigits(String currency) {
+        try {
+            return Math.max(Currency.getInstance(currency != null ? currency : DEFAULT_CURRENCY)
+                    .getDefaultFractionDigits(), 0);
+        } catch (IllegalArgumentException e) {
+            return 2;
+        }
+    }
+
+    public long getMinorUnits() { return minorUnits; }
+
+    public String getCurrency() { return currency; }
+
+    public double toDecimal() { return toDecimal(minorUnits, currency); }
+
+    public boolean isZero() { return minorUnits == 0; }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return of(minorUnits + other.minorUnits, currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return of(minorUnits - other.minorUnits, currency);
+    }
+
+    public Money times(int quantity) {
+        return of(minorUnits * quantity, currency);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Cannot combine " + currency + " and " + other.currency);
+        }
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (minorUnits ^ (minorUnits >>> 32)) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return currency + " " + BigDecimal.valueOf(minorUnits).movePointLeft(fractionDigits(currency)).toPlainString();
+    }
+}
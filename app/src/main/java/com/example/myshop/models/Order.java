@@ -1,18 +1,27 @@
 package com.example.myshop.models;
 
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.PropertyName;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Date;
+import java.util.Objects;
 
 public class Order implements Serializable {
     private String orderId;
     private String userId;
-    private List<CartItem> items;
-    private double totalAmount;
+    private List<OrderItem> items;
+    private transient List<CartItem> lineItems; // items joined with product data, never stored
+    private long totalAmountCents; // Minor units of currency, shipping included
+    private String currency = Money.DEFAULT_CURRENCY;
+    private Long shippingCents; // Null on orders placed before the breakdown was stored
+    private long discountCents;
+    private long taxCents;
     private String status; // "PENDING", "CONFIRMED", "SHIPPED", "DELIVERED"
     private Date orderDate;
     private ShippingAddress shippingAddress;
     private String paymentMethod;
+    private boolean countedInStats; // Placed since the daily counters existed; older orders aren't in them
 
     // Nested ShippingAddress class
     public static class ShippingAddress implements Serializable {
@@ -53,6 +62,24 @@ public class Order implements Serializable {
 
         public String getPhone() { return phone; }
         public void setPhone(String phone) { this.phone = phone; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ShippingAddress)) return false;
+            ShippingAddress that = (ShippingAddress) o;
+            return Objects.equals(fullName, that.fullName) &&
+                    Objects.equals(streetAddress, that.streetAddress) &&
+                    Objects.equals(city, that.city) &&
+                    Objects.equals(state, that.state) &&
+                    Objects.equals(zipCode, that.zipCode) &&
+                    Objects.equals(phone, that.phone);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fullName, streetAddress, city, state, zipCode, phone);
+        }
     }
 
     // Empty constructor for Firebase
@@ -61,13 +88,13 @@ public class Order implements Serializable {
         this.status = "PENDING";
     }
 
-    public Order(String orderId, String userId, List<CartItem> items, 
-                double totalAmount, ShippingAddress shippingAddress, 
+    public Order(String orderId, String userId, List<OrderItem> items, 
+                Money total, ShippingAddress shippingAddress, 
                 String paymentMethod) {
         this.orderId = orderId;
         this.userId = userId;
         this.items = items;
-        this.totalAmount = totalAmount;
+        setTotal(total);
         this.status = "PENDING";
         this.orderDate = new Date();
         this.shippingAddress = shippingAddress;
@@ -81,11 +108,68 @@ public class Order implements Serializable {
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
 
-    public List<CartItem> getItems() { return items; }
-    public void setItems(List<CartItem> items) { this.items = items; }
+    public List<OrderItem> getItems() { return items; }
+    public void setItems(List<OrderItem> items) { this.items = items; }
+
+    @Exclude
+    public List<CartItem> getLineItems() { return lineItems; }
+    @Exclude
+    public void setLineItems(List<CartItem> lineItems) { this.lineItems = lineItems; }
 
-    public double getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; }
+    @Exclude
+    public Money getTotal() { return Money.of(totalAmountCents, currency); }
+    @Exclude
+    public void setTotal(Money total) {
+        this.totalAmountCents = total.getMinorUnits();
+        this.currency = total.getCurrency();
+    }
+
+    // Sum of the stored lines at the prices paid
+    @Exclude
+    public Money getSubtotal() {
+        long subtotalCents = 0;
+        if (items != null) {
+            for (OrderItem item : items) {
+                subtotalCents += item.getTotalPriceCents();
+            }
+        }
+        return Money.of(subtotalCents, currency);
+    }
+
+    // Older orders only stored the total, which was the subtotal plus shipping
+    @Exclude
+    public Money getShippingCost() {
+        return shippingCents != null ? Money.of(shippingCents, currency) : getTotal().minus(getSubtotal());
+    }
+
+    @Exclude
+    public Money getDiscount() { return Money.of(discountCents, currency); }
+
+    @Exclude
+    public Money getTax() { return Money.of(taxCents, currency); }
+
+    public long getTotalAmountCents() { return totalAmountCents; }
+    public void setTotalAmountCents(long totalAmountCents) { this.totalAmountCents = totalAmountCents; }
+
+    public Long getShippingCents() { return shippingCents; }
+    public void setShippingCents(Long shippingCents) { this.shippingCents = shippingCents; }
+
+    public long getDiscountCents() { return discountCents; }
+    public void setDiscountCents(long discountCents) { this.discountCents = discountCents; }
+
+    public long getTaxCents() { return taxCents; }
+    public void setTaxCents(long taxCents) { this.taxCents = taxCents; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    // Older orders only have the decimal total. Read in through the setter, never written back.
+    @Exclude
+    public double getLegacyTotalAmount() { return Money.toDecimal(totalAmountCents, currency); }
+    @PropertyName("totalAmount")
+    public void setLegacyTotalAmount(double totalAmount) {
+        this.totalAmountCents = Money.toMinorUnits(totalAmount, currency);
+    }
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
@@ -101,12 +185,15 @@ public class Order implements Serializable {
     public String getPaymentMethod() { return paymentMethod; }
     public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
 
+    public boolean isCountedInStats() { return countedInStats; }
+    public void setCountedInStats(boolean countedInStats) { this.countedInStats = countedInStats; }
+
     @Override
     public String toString() {
         return "Order{" +
                 "orderId='" + orderId + '\'' +
                 ", userId='" + userId + '\'' +
-                ", totalAmount=" + totalAmount +
+                ", total=" + getTotal() +
                 ", status='" + status + '\'' +
                 ", orderDate=" + orderDate +
                 '}';
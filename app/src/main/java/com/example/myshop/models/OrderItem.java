@@ -0,0 +1,73 @@
+package com.example.myshop.models;
+
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.PropertyName;
+import java.io.Serializable;
+
+// What an order stores per line. Name and image are looked up from the product when
+// the order is displayed; the price is kept because it is what the customer paid.
+public class OrderItem implements Serializable {
+    private String productId;
+    private int quantity;
+    private long unitPriceCents; // Minor units of currency
+    private String currency = Money.DEFAULT_CURRENCY;
+
+    // Empty constructor for Firebase
+    public OrderItem() {}
+
+    public OrderItem(String productId, int quantity, Money unitPrice) {
+        this.productId = productId;
+        this.quantity = quantity;
+        setUnitPrice(unitPrice);
+    }
+
+    public static OrderItem fromCartItem(CartItem cartItem) {
+        return new OrderItem(cartItem.getProductId(), cartItem.getQuantity(), cartItem.getProductPrice());
+    }
+
+    // Getters and Setters
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    @Exclude
+    public Money getUnitPrice() { return Money.of(unitPriceCents, currency); }
+    @Exclude
+    public void setUnitPrice(Money unitPrice) {
+        this.unitPriceCents = unitPrice.getMinorUnits();
+        this.currency = unitPrice.getCurrency();
+    }
+
+    public long getUnitPriceCents() { return unitPriceCents; }
+    public void setUnitPriceCents(long unitPriceCents) { this.unitPriceCents = unitPriceCents; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    // Older orders only have the decimal price. Read in through the setter, never written back.
+    @Exclude
+    public double getLegacyUnitPrice() { return Money.toDecimal(unitPriceCents, currency); }
+    @PropertyName("unitPrice")
+    public void setLegacyUnitPrice(double unitPrice) { this.unitPriceCents = Money.toMinorUnits(unitPrice, currency); }
+
+    // Orders that were saved as full cart items carry productPrice instead of unitPrice
+    @PropertyName("productPrice")
+    public void setLegacyProductPrice(double productPrice) { this.unitPriceCents = Money.toMinorUnits(productPrice, currency); }
+
+    @Exclude
+    public long getTotalPriceCents() { return unitPriceCents * quantity; }
+
+    @Exclude
+    public Money getTotalPrice() { return Money.of(getTotalPriceCents(), currency); }
+
+    @Override
+    public String toString() {
+        return "OrderItem{" +
+                "productId='" + productId + '\'' +
+                ", quantity=" + quantity +
+                ", unitPrice=" + getUnitPrice() +
+                '}';
+    }
+}
@@ -1,25 +1,36 @@
 package com.example.myshop.models;
 
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.PropertyName;
+import com.google.firebase.firestore.ServerTimestamp;
 import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
 
 public class Product implements Serializable {
     private String id;
     private String name;
     private String description;
-    private double price;
+    private long priceCents; // Minor units of currency
+    private String currency = Money.DEFAULT_CURRENCY;
     private String imageUrl;
+    private String thumbnailUrl; // Small variant for lists; empty until one has been uploaded
+    private String detailImageUrl; // Screen-sized variant for the detail page
     private String category;
     private int stockQuantity;
+    @ServerTimestamp
+    private Date updatedAt; // Set by Firestore on every write, drives delta sync
+    private List<String> searchKeywords; // Lowercased word prefixes of name and category
     
     // Empty constructor for Firebase
     public Product() {}
     
-    public Product(String id, String name, String description, double price, 
+    public Product(String id, String name, String description, Money price, 
                   String imageUrl, String category, int stockQuantity) {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.price = price;
+        setPrice(price);
         this.imageUrl = imageUrl;
         this.category = category;
         this.stockQuantity = stockQuantity;
@@ -35,24 +46,54 @@ public class Product implements Serializable {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
     
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    @Exclude
+    public Money getPrice() { return Money.of(priceCents, currency); }
+    @Exclude
+    public void setPrice(Money price) {
+        this.priceCents = price.getMinorUnits();
+        this.currency = price.getCurrency();
+    }
+
+    public long getPriceCents() { return priceCents; }
+    public void setPriceCents(long priceCents) { this.priceCents = priceCents; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    // Older documents only have the decimal price. Read-only: it is mapped in through the
+    // setter and never written back, so documents hold the amount once, in minor units.
+    @Exclude
+    public double getLegacyPrice() { return Money.toDecimal(priceCents, currency); }
+    @PropertyName("price")
+    public void setLegacyPrice(double price) { this.priceCents = Money.toMinorUnits(price, currency); }
     
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
     
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+    
+    public String getDetailImageUrl() { return detailImageUrl; }
+    public void setDetailImageUrl(String detailImageUrl) { this.detailImageUrl = detailImageUrl; }
+    
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
     
     public int getStockQuantity() { return stockQuantity; }
     public void setStockQuantity(int stockQuantity) { this.stockQuantity = stockQuantity; }
     
+    public Date getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Date updatedAt) { this.updatedAt = updatedAt; }
+    
+    public List<String> getSearchKeywords() { return searchKeywords; }
+    public void setSearchKeywords(List<String> searchKeywords) { this.searchKeywords = searchKeywords; }
+    
     @Override
     public String toString() {
         return "Product{" +
                 "id='" + id + '\'' +
                 ", name='" + name + '\'' +
-                ", price=" + price +
+                ", price=" + getPrice() +
                 ", category='" + category + '\'' +
                 '}';
     }
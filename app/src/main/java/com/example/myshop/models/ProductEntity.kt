@@ -0,0 +1,53 @@
+package com.example.myshop.models
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+@Entity(
+    tableName = "products",
+    indices = [Index("category"), Index("syncedAt")]
+)
+data class ProductEntity(
+    @PrimaryKey
+    val id: String,
+    val name: String = "",
+    val description: String = "",
+    val priceCents: Long = 0,
+    val currency: String = Money.DEFAULT_CURRENCY,
+    val imageUrl: String = "",
+    val thumbnailUrl: String = "",
+    val detailImageUrl: String = "",
+    val category: String = "",
+    val stockQuantity: Int = 0,
+    val updatedAt: Long = 0,
+    val syncedAt: Long = System.currentTimeMillis()
+) {
+
+    fun toProduct(): Product {
+        return Product(id, name, description, Money.of(priceCents, currency), imageUrl, category, stockQuantity)
+            .also {
+                it.thumbnailUrl = thumbnailUrl
+                it.detailImageUrl = detailImageUrl
+            }
+    }
+
+    companion object {
+        fun fromProduct(product: Product, syncedAt: Long = System.currentTimeMillis()): ProductEntity {
+            return ProductEntity(
+                id = product.id,
+                name = product.name ?: "",
+                description = product.description ?: "",
+                priceCents = product.priceCents,
+                currency = product.currency ?: Money.DEFAULT_CURRENCY,
+                imageUrl = product.imageUrl ?: "",
+                thumbnailUrl = product.thumbnailUrl ?: "",
+                detailImageUrl = product.detailImageUrl ?: "",
+                category = product.category ?: "",
+                stockQuantity = product.stockQuantity,
+                updatedAt = product.updatedAt?.time ?: 0,
+                syncedAt = syncedAt
+            )
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.myshop.models;
 
+import com.google.firebase.firestore.Exclude;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 public class User implements Serializable {
@@ -11,13 +13,15 @@ public class User implements Serializable {
     private String phoneNumber;
     private List<Order.ShippingAddress> addresses;
     private String userType; // "CUSTOMER" or "ADMIN"
-    private List<String> favoriteProducts;
+    // A set for O(1) membership checks; Firestore only maps lists, so it is exposed as one
+    private LinkedHashSet<String> favoriteProducts;
     private String profileImageUrl;
+    private String profileThumbnailUrl; // Avatar-sized copy of profileImageUrl
 
     // Empty constructor for Firebase
     public User() {
         this.addresses = new ArrayList<>();
-        this.favoriteProducts = new ArrayList<>();
+        this.favoriteProducts = new LinkedHashSet<>();
         this.userType = "CUSTOMER"; // Default user type
     }
 
@@ -57,22 +61,28 @@ public class User implements Serializable {
     public void setUserType(String userType) { this.userType = userType; }
     public boolean isAdmin() { return "ADMIN".equals(userType); }
 
-    public List<String> getFavoriteProducts() { return favoriteProducts; }
+    // In the order they were added
+    public List<String> getFavoriteProducts() {
+        return favoriteProducts != null ? new ArrayList<>(favoriteProducts) : new ArrayList<>();
+    }
     public void setFavoriteProducts(List<String> favoriteProducts) { 
-        this.favoriteProducts = favoriteProducts; 
+        this.favoriteProducts = favoriteProducts != null
+                ? new LinkedHashSet<>(favoriteProducts)
+                : new LinkedHashSet<>();
     }
-    public void addFavoriteProduct(String productId) {
+    @Exclude
+    public boolean isFavorite(String productId) {
+        return favoriteProducts != null && favoriteProducts.contains(productId);
+    }
+    // Both return whether the set changed
+    public boolean addFavoriteProduct(String productId) {
         if (this.favoriteProducts == null) {
-            this.favoriteProducts = new ArrayList<>();
-        }
-        if (!this.favoriteProducts.contains(productId)) {
-            this.favoriteProducts.add(productId);
+            this.favoriteProducts = new LinkedHashSet<>();
         }
+        return this.favoriteProducts.add(productId);
     }
-    public void removeFavoriteProduct(String productId) {
-        if (this.favoriteProducts != null) {
-            this.favoriteProducts.remove(productId);
-        }
+    public boolean removeFavoriteProduct(String productId) {
+        return this.favoriteProducts != null && this.favoriteProducts.remove(productId);
     }
 
     public String getProfileImageUrl() { return profileImageUrl; }
@@ -80,6 +90,11 @@ public class User implements Serializable {
         this.profileImageUrl = profileImageUrl; 
     }
 
+    public String getProfileThumbnailUrl() { return profileThumbnailUrl; }
+    public void setProfileThumbnailUrl(String profileThumbnailUrl) {
+        this.profileThumbnailUrl = profileThumbnailUrl;
+    }
+
     @Override
     public String toString() {
         return "User{" +
@@ -0,0 +1,138 @@
+package com.example.myshop.services
+
+import android.app.PendingIntent
+import android.content.Context
+import android.content.Intent
+import android.media.RingtoneManager
+import android.os.Build
+import android.os.SystemClock
+import androidx.core.app.NotificationCompat
+import androidx.core.app.NotificationManagerCompat
+import androidx.startup.AppInitializer
+import com.example.myshop.R
+import com.example.myshop.startup.NotificationChannelInitializer
+import com.example.myshop.ui.activities.MainActivity
+import com.example.myshop.utils.Constants
+
+// Posts order status pushes straight from onMessageReceived, since the process may be
+// stopped as soon as it returns. Each order keeps a single notification that later pushes
+// replace, and once more than one order is showing they are grouped under a summary that
+// is re-posted every time and is the only one to make a sound. Pushes arriving within
+// ALERT_WINDOW_MS of the last sound are posted silently, so a burst alerts once.
+object OrderNotificationRenderer {
+
+    private const val ALERT_WINDOW_MS = 2000L
+    private const val GROUP_KEY = "com.example.myshop.ORDER_STATUS"
+    private const val SUMMARY_ID = 0
+    // Opened notifications are forgotten in onOrderOpened; swiped ones age out past this
+    private const val MAX_SHOWN_ORDERS = 10
+
+    private data class StatusUpdate(
+        val orderId: String,
+        val status: String,
+        val title: String?,
+        val message: String?
+    )
+
+    private val lock = Any()
+
+    // Guarded by lock
+    private val shown = LinkedHashMap<String, StatusUpdate>()
+    private var lastAlertAt = 0L
+
+    fun show(context: Context, orderId: String, status: String, title: String?, message: String?) {
+        val appContext = context.applicationContext
+        val update = StatusUpdate(orderId, status, title, message)
+        val visible: List<StatusUpdate>
+        val silent: Boolean
+        synchronized(lock) {
+            shown.remove(orderId)
+            shown[orderId] = update
+            while (shown.size > MAX_SHOWN_ORDERS) {
+                shown.remove(shown.keys.first())
+            }
+            visible = shown.values.toList()
+
+            val now = SystemClock.elapsedRealtime()
+            silent = lastAlertAt != 0L && now - lastAlertAt < ALERT_WINDOW_MS
+            if (!silent) lastAlertAt = now
+        }
+        post(appContext, update, visible, silent)
+    }
+
+    // Drops an order from the summary once its notification has been opened
+    fun onOrderOpened(orderId: String) {
+        synchronized(lock) {
+            shown.remove(orderId)
+        }
+    }
+
+    private fun post(context: Context, update: StatusUpdate, visible: List<StatusUpdate>, silent: Boolean) {
+        val notificationManager = NotificationManagerCompat.from(context)
+        if (!notificationManager.areNotificationsEnabled()) return
+
+        // Normally already done in the background at launch; a push can start the process first
+        AppInitializer.getInstance(context)
+            .initializeComponent(NotificationChannelInitializer::class.java)
+
+        val grouped = visible.size > 1
+        notificationManager.notify(update.orderId.hashCode(), buildOrderNotification(context, update, grouped, silent))
+        if (grouped) {
+            notificationManager.notify(SUMMARY_ID, buildSummaryNotification(context, visible, silent))
+        }
+    }
+
+    private fun buildOrderNotification(context: Context, update: StatusUpdate, grouped: Boolean, silent: Boolean) =
+        NotificationCompat.Builder(context, context.getString(R.string.order_status_notification_channel_id))
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle(update.title ?: context.getString(R.string.order_status_update))
+            .setContentText(update.message ?: context.getString(R.string.order_status_changed, update.status))
+            .setAutoCancel(true)
+            .setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION))
+            .setContentIntent(buildContentIntent(context, update.orderId))
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setGroup(GROUP_KEY)
+            // In a group only the summary alerts, so a burst of pushes makes one sound
+            .setGroupAlertBehavior(
+                if (grouped) NotificationCompat.GROUP_ALERT_SUMMARY else NotificationCompat.GROUP_ALERT_ALL
+            )
+            .setSilent(silent)
+            .build()
+
+    private fun buildSummaryNotification(context: Context, updates: List<StatusUpdate>, silent: Boolean) =
+        NotificationCompat.Builder(context, context.getString(R.string.order_status_notification_channel_id))
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle(context.getString(R.string.order_status_update))
+            .setContentText(context.resources.getQuantityString(
+                R.plurals.order_status_summary, updates.size, updates.size))
+            .setStyle(NotificationCompat.InboxStyle().also { style ->
+                updates.asReversed().forEach { update ->
+                    style.addLine(context.getString(
+                        R.string.order_status_summary_line, update.orderId.take(8), update.status))
+                }
+            })
+            .setAutoCancel(true)
+            .setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION))
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setGroup(GROUP_KEY)
+            .setGroupSummary(true)
+            .setSilent(silent)
+            .build()
+
+    private fun buildContentIntent(context: Context, orderId: String): PendingIntent {
+        val intent = Intent(context, MainActivity::class.java).apply {
+            flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_CLEAR_TOP
+            putExtra(Constants.EXTRA_ORDER_ID, orderId)
+            putExtra(Constants.EXTRA_NOTIFICATION_TYPE, Constants.NOTIFICATION_TYPE_ORDER_STATUS)
+        }
+
+        val pendingIntentFlags = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        } else {
+            PendingIntent.FLAG_UPDATE_CURRENT
+        }
+
+        // One request code per order so each notification opens its own order
+        return PendingIntent.getActivity(context, orderId.hashCode(), intent, pendingIntentFlags)
+    }
+}
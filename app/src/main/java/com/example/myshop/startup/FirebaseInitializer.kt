@@ -0,0 +1,37 @@
+package com.example.myshop.startup
+
+import android.content.Context
+import androidx.startup.Initializer
+import com.example.myshop.BuildConfig
+import com.google.firebase.FirebaseApp
+import com.google.firebase.auth.FirebaseAuth
+import com.google.firebase.firestore.FirebaseFirestore
+import com.google.firebase.firestore.FirebaseFirestoreSettings
+
+// Runs from the startup provider before any activity. Firestore settings can only be
+// applied before the first read or write, so this is the one piece of init that stays
+// on the launch path.
+class FirebaseInitializer : Initializer<FirebaseFirestore> {
+
+    override fun create(context: Context): FirebaseFirestore {
+        FirebaseApp.initializeApp(context)
+
+        val firestore = FirebaseFirestore.getInstance()
+        if (BuildConfig.USE_FIREBASE_EMULATOR) {
+            firestore.useEmulator(EMULATOR_HOST, FIRESTORE_EMULATOR_PORT)
+            FirebaseAuth.getInstance().useEmulator(EMULATOR_HOST, AUTH_EMULATOR_PORT)
+        }
+        firestore.firestoreSettings = FirebaseFirestoreSettings.Builder()
+            .setPersistenceEnabled(true)
+            .build()
+        return firestore
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+
+    companion object {
+        private const val EMULATOR_HOST = "10.0.2.2"
+        private const val FIRESTORE_EMULATOR_PORT = 8080
+        private const val AUTH_EMULATOR_PORT = 9099
+    }
+}
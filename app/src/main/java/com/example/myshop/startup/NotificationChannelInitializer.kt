@@ -0,0 +1,35 @@
+package com.example.myshop.startup
+
+import android.app.NotificationChannel
+import android.app.NotificationManager
+import android.content.Context
+import android.os.Build
+import androidx.startup.Initializer
+import com.example.myshop.R
+
+// Not registered with the startup provider: the application runs it off the main thread
+// after launch, and the notification code runs it again before posting in case a push
+// beats it. AppInitializer only ever creates it once.
+class NotificationChannelInitializer : Initializer<Unit> {
+
+    override fun create(context: Context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return
+
+        // Order Status Channel
+        val orderStatusChannel = NotificationChannel(
+            context.getString(R.string.order_status_notification_channel_id),
+            context.getString(R.string.order_status_channel_name),
+            NotificationManager.IMPORTANCE_HIGH
+        ).apply {
+            description = context.getString(R.string.order_status_channel_description)
+            enableLights(true)
+            enableVibration(true)
+        }
+
+        val notificationManager =
+            context.getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
+        notificationManager.createNotificationChannel(orderStatusChannel)
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+}
@@ -8,7 +8,9 @@ import androidx.navigation.NavController
 import androidx.navigation.fragment.NavHostFragment
 import androidx.navigation.ui.setupWithNavController
 import com.example.myshop.R
+import com.example.myshop.data.sync.FcmTokenRegistry
 import com.example.myshop.databinding.ActivityMainBinding
+import com.example.myshop.services.OrderNotificationRenderer
 import com.example.myshop.utils.Constants
 import com.google.android.material.bottomnavigation.BottomNavigationView
 
@@ -31,6 +33,9 @@ class MainActivity : AppCompatActivity() {
         findViewById<BottomNavigationView>(R.id.bottom_nav_view)
             .setupWithNavController(navController)
 
+        // No-op unless the token or signed-in user changed since the last write
+        FcmTokenRegistry.getInstance(this).ensureRegistered()
+
         // Handle intent
         handleIntent(intent)
     }
@@ -54,6 +59,7 @@ class MainActivity : AppCompatActivity() {
                     when (notificationType) {
                         Constants.NOTIFICATION_TYPE_ORDER_STATUS -> {
                             orderId?.let { id ->
+                                OrderNotificationRenderer.onOrderOpened(id)
                                 navController.navigate(
                                     R.id.navigation_order_details,
                                     Bundle().apply {
@@ -6,11 +6,10 @@ import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
 import com.bumptech.glide.Glide
-import com.example.myshop.R
 import com.example.myshop.databinding.ItemCartBinding
+import com.example.myshop.images.ProductImages
 import com.example.myshop.models.CartItem
-import java.text.NumberFormat
-import java.util.Locale
+import com.example.myshop.utils.Formatters
 
 class CartAdapter(
     private val onQuantityChanged: (CartItem, Int) -> Unit,
@@ -42,24 +41,16 @@ class CartAdapter(
                 productName.text = cartItem.productName
 
                 // Format and set price
-                val formattedPrice = NumberFormat.getCurrencyInstance(Locale.US)
-                    .format(cartItem.productPrice)
-                productPrice.text = formattedPrice
+                productPrice.text = Formatters.formatPrice(cartItem.productPrice)
 
                 // Set total price
-                val formattedTotal = NumberFormat.getCurrencyInstance(Locale.US)
-                    .format(cartItem.totalPrice)
-                totalPrice.text = formattedTotal
+                totalPrice.text = Formatters.formatPrice(cartItem.totalPrice)
 
                 // Set quantity
                 quantityText.text = cartItem.quantity.toString()
 
                 // Load product image
-                Glide.with(productImage)
-                    .load(cartItem.productImage)
-                    .placeholder(R.drawable.placeholder_product)
-                    .error(R.drawable.error_product)
-                    .centerCrop()
+                ProductImages.thumbnail(Glide.with(productImage), cartItem.productImage)
                     .into(productImage)
 
                 // Setup quantity controls
@@ -91,7 +82,7 @@ class CartAdapter(
 
         override fun areContentsTheSame(oldItem: CartItem, newItem: CartItem): Boolean {
             return oldItem.quantity == newItem.quantity &&
-                    oldItem.totalPrice == newItem.totalPrice
+                    oldItem.totalPriceCents == newItem.totalPriceCents
         }
     }
 }
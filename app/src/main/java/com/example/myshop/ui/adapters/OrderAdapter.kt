@@ -0,0 +1,75 @@
+package com.example.myshop.ui.adapters
+
+import android.view.LayoutInflater
+import android.view.ViewGroup
+import androidx.paging.PagingDataAdapter
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.RecyclerView
+import com.example.myshop.R
+import com.example.myshop.databinding.ItemOrderBinding
+import com.example.myshop.models.Order
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.Formatters
+
+class OrderAdapter(
+    private val onOrderClick: (Order) -> Unit
+) : PagingDataAdapter<Order, OrderAdapter.OrderViewHolder>(OrderDiffCallback()) {
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): OrderViewHolder {
+        val binding = ItemOrderBinding.inflate(
+            LayoutInflater.from(parent.context),
+            parent,
+            false
+        )
+        return OrderViewHolder(binding)
+    }
+
+    override fun onBindViewHolder(holder: OrderViewHolder, position: Int) {
+        getItem(position)?.let { holder.bind(it) }
+    }
+
+    inner class OrderViewHolder(
+        private val binding: ItemOrderBinding
+    ) : RecyclerView.ViewHolder(binding.root) {
+
+        fun bind(order: Order) {
+            with(binding) {
+                val context = root.context
+
+                orderIdText.text = context.getString(R.string.text_order_number, order.orderId.take(8))
+                orderDateText.text = order.orderDate?.let { Formatters.formatDate(it, Formatters.ORDER_DATE_PATTERN) } ?: ""
+                orderTotalText.text = Formatters.formatPrice(order.total)
+
+                // Compact items are enough for a count; names are only loaded on the details screen
+                val itemCount = order.items.orEmpty().sumOf { it.quantity }
+                itemCountText.text = context.resources.getQuantityString(R.plurals.text_item_count, itemCount, itemCount)
+
+                orderStatusText.text = order.status
+                orderStatusText.setTextColor(context.getColor(getStatusColor(order.status)))
+
+                root.setOnClickListener { onOrderClick(order) }
+            }
+        }
+    }
+
+    private fun getStatusColor(status: String?): Int {
+        return when (status) {
+            Constants.ORDER_STATUS_PENDING -> R.color.status_pending
+            Constants.ORDER_STATUS_CONFIRMED -> R.color.status_confirmed
+            Constants.ORDER_STATUS_SHIPPED -> R.color.status_shipped
+            Constants.ORDER_STATUS_DELIVERED -> R.color.status_delivered
+            Constants.ORDER_STATUS_CANCELLED -> R.color.status_cancelled
+            else -> R.color.black
+        }
+    }
+
+    private class OrderDiffCallback : DiffUtil.ItemCallback<Order>() {
+        override fun areItemsTheSame(oldItem: Order, newItem: Order): Boolean {
+            return oldItem.orderId == newItem.orderId
+        }
+
+        override fun areContentsTheSame(oldItem: Order, newItem: Order): Boolean {
+            return oldItem.status == newItem.status && oldItem.totalAmountCents == newItem.totalAmountCents
+        }
+    }
+}
@@ -2,19 +2,37 @@ package com.example.myshop.ui.adapters
 
 import android.view.LayoutInflater
 import android.view.ViewGroup
+import androidx.paging.PagingDataAdapter
 import androidx.recyclerview.widget.DiffUtil
-import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
-import com.bumptech.glide.Glide
+import com.bumptech.glide.ListPreloader
+import com.bumptech.glide.RequestBuilder
+import com.bumptech.glide.RequestManager
+import com.bumptech.glide.util.ViewPreloadSizeProvider
 import com.example.myshop.R
 import com.example.myshop.databinding.ItemProductBinding
+import com.example.myshop.images.ProductImages
 import com.example.myshop.models.Product
-import java.text.NumberFormat
-import java.util.Locale
+import com.example.myshop.utils.Formatters
 
+// Also feeds a RecyclerViewPreloader: thumbnails for the rows about to scroll in are
+// fetched and decoded at the grid's cell size before they are bound
 class ProductAdapter(
+    private val requestManager: RequestManager,
+    private val preloadSizeProvider: ViewPreloadSizeProvider<Product>,
+    private val onFavoriteClick: (Product) -> Unit,
     private val onProductClick: (Product) -> Unit
-) : ListAdapter<Product, ProductAdapter.ProductViewHolder>(ProductDiffCallback()) {
+) : PagingDataAdapter<Product, ProductAdapter.ProductViewHolder>(ProductDiffCallback()),
+    ListPreloader.PreloadModelProvider<Product> {
+
+    private var favoriteIds: Set<String> = emptySet()
+
+    // Only the heart is rebound; rows not on screen pick the new set up when bound
+    fun submitFavorites(ids: Set<String>) {
+        if (ids == favoriteIds) return
+        favoriteIds = ids
+        notifyItemRangeChanged(0, itemCount, PAYLOAD_FAVORITE)
+    }
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ProductViewHolder {
         val binding = ItemProductBinding.inflate(
@@ -22,34 +40,47 @@ class ProductAdapter(
             parent,
             false
         )
-        return ProductViewHolder(binding, onProductClick)
+        // Only the first view is measured; every cell in the grid is the same size
+        preloadSizeProvider.setView(binding.productImage)
+        return ProductViewHolder(binding, requestManager, onFavoriteClick, onProductClick)
     }
 
     override fun onBindViewHolder(holder: ProductViewHolder, position: Int) {
-        holder.bind(getItem(position))
+        getItem(position)?.let { holder.bind(it, it.id in favoriteIds) }
+    }
+
+    override fun onBindViewHolder(holder: ProductViewHolder, position: Int, payloads: MutableList<Any>) {
+        if (payloads.isNotEmpty() && payloads.all { it == PAYLOAD_FAVORITE }) {
+            getItem(position)?.let { holder.bindFavorite(it.id in favoriteIds) }
+        } else {
+            onBindViewHolder(holder, position)
+        }
     }
 
+    // peek() rather than getItem() so preloading never triggers a page load
+    override fun getPreloadItems(position: Int): List<Product> =
+        listOfNotNull(if (position < itemCount) peek(position) else null)
+
+    override fun getPreloadRequestBuilder(item: Product): RequestBuilder<*> =
+        ProductImages.thumbnail(requestManager, ProductImages.thumbnailUrl(item))
+
     class ProductViewHolder(
         private val binding: ItemProductBinding,
+        private val requestManager: RequestManager,
+        private val onFavoriteClick: (Product) -> Unit,
         private val onProductClick: (Product) -> Unit
     ) : RecyclerView.ViewHolder(binding.root) {
 
-        fun bind(product: Product) {
+        fun bind(product: Product, favorite: Boolean) {
             with(binding) {
                 // Set product name
                 productName.text = product.name
 
                 // Format and set price
-                val formattedPrice = NumberFormat.getCurrencyInstance(Locale.US)
-                    .format(product.price)
-                productPrice.text = formattedPrice
-
-                // Load product image using Glide
-                Glide.with(productImage)
-                    .load(product.imageUrl)
-                    .placeholder(R.drawable.placeholder_product)
-                    .error(R.drawable.error_product)
-                    .centerCrop()
+                productPrice.text = Formatters.formatPrice(product.price)
+
+                // Same request the preloader made, so this is usually a memory cache hit
+                ProductImages.thumbnail(requestManager, ProductImages.thumbnailUrl(product))
                     .into(productImage)
 
                 // Set stock status
@@ -61,10 +92,26 @@ class ProductAdapter(
                     stockStatus.text = root.context.getString(R.string.text_out_of_stock)
                 }
 
+                bindFavorite(favorite)
+                favoriteButton.setOnClickListener { onFavoriteClick(product) }
+
                 // Set click listener
                 root.setOnClickListener { onProductClick(product) }
             }
         }
+
+        fun bindFavorite(favorite: Boolean) {
+            binding.favoriteButton.apply {
+                setImageResource(if (favorite) R.drawable.ic_favorite else R.drawable.ic_favorite_border)
+                contentDescription = context.getString(
+                    if (favorite) R.string.action_remove_favorite else R.string.action_add_favorite
+                )
+            }
+        }
+    }
+
+    companion object {
+        private const val PAYLOAD_FAVORITE = "favorite"
     }
 
     private class ProductDiffCallback : DiffUtil.ItemCallback<Product>() {
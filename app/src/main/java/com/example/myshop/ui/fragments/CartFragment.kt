@@ -6,15 +6,18 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.Toast
 import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
 import androidx.navigation.fragment.findNavController
 import androidx.recyclerview.widget.LinearLayoutManager
 import com.example.myshop.R
 import com.example.myshop.databinding.FragmentCartBinding
 import com.example.myshop.models.CartItem
+import com.example.myshop.data.pricing.CartQuote
 import com.example.myshop.ui.adapters.CartAdapter
+import com.example.myshop.ui.viewmodels.CartViewModel
 import com.example.myshop.utils.FirebaseHelper
-import java.text.NumberFormat
-import java.util.Locale
+import com.example.myshop.utils.Formatters
+import com.example.myshop.utils.Resource
 
 class CartFragment : Fragment() {
 
@@ -22,8 +25,10 @@ class CartFragment : Fragment() {
     private val binding get() = _binding!!
     
     private val firebaseHelper = FirebaseHelper.getInstance()
+    private val cartViewModel: CartViewModel by viewModels()
     private lateinit var cartAdapter: CartAdapter
-    private var cartItems = mutableListOf<CartItem>()
+    private var cartItems = listOf<CartItem>()
+    private var quote: CartQuote? = null
 
     override fun onCreateView(
         inflater: LayoutInflater,
@@ -39,6 +44,7 @@ class CartFragment : Fragment() {
         
         setupRecyclerView()
         setupButtons()
+        observeCart()
         loadCartItems()
     }
 
@@ -60,7 +66,14 @@ class CartFragment : Fragment() {
 
     private fun setupButtons() {
         binding.checkoutButton.setOnClickListener {
-            if (cartItems.isNotEmpty()) {
+            val quote = quote
+            if (cartItems.isNotEmpty() && quote != null && !quote.meetsMinimum) {
+                showError(getString(
+                    R.string.error_minimum_order,
+                    Formatters.formatPrice(quote.minimumOrder),
+                    Formatters.formatPrice(quote.amountToMinimum)
+                ))
+            } else if (cartItems.isNotEmpty()) {
                 navigateToCheckout()
             } else {
                 Toast.makeText(
@@ -76,9 +89,36 @@ class CartFragment : Fragment() {
         }
     }
 
+    private fun observeCart() {
+        // Local cart store; reflects every change as soon as it is made
+        cartViewModel.cartItems.observe(viewLifecycleOwner) { items ->
+            cartItems = items
+            if (cartItems.isEmpty()) {
+                showEmptyCart()
+            } else {
+                showCartItems()
+            }
+            cartAdapter.submitList(cartItems)
+        }
+
+        cartViewModel.quote.observe(viewLifecycleOwner) { quote ->
+            this.quote = quote
+            updateTotalPrice(quote)
+        }
+
+        cartViewModel.operationStatus.observe(viewLifecycleOwner) { status ->
+            when (status) {
+                is Resource.Loading -> showLoading(true)
+                is Resource.Success -> showLoading(false)
+                is Resource.Error -> {
+                    showLoading(false)
+                    showError(status.message ?: "Failed to load cart items")
+                }
+            }
+        }
+    }
+
     private fun loadCartItems() {
-        showLoading(true)
-        
         val currentUser = firebaseHelper.getCurrentUser()
         if (currentUser == null) {
             showEmptyCart()
@@ -86,25 +126,7 @@ class CartFragment : Fragment() {
             return
         }
 
-        firebaseHelper.getCartItems(currentUser.uid)
-            .addOnSuccessListener { querySnapshot ->
-                cartItems = querySnapshot.documents.mapNotNull { document ->
-                    document.toObject(CartItem::class.java)
-                }.toMutableList()
-                
-                if (cartItems.isEmpty()) {
-                    showEmptyCart()
-                } else {
-                    showCartItems()
-                    cartAdapter.submitList(cartItems)
-                    updateTotalPrice()
-                }
-                showLoading(false)
-            }
-            .addOnFailureListener { e ->
-                showError("Failed to load cart items")
-                showLoading(false)
-            }
+        cartViewModel.refreshCart()
     }
 
     private fun updateCartItemQuantity(cartItem: CartItem, newQuantity: Int) {
@@ -113,47 +135,17 @@ class CartFragment : Fragment() {
             return
         }
 
-        val currentUser = firebaseHelper.getCurrentUser() ?: return
-        
-        firebaseHelper.updateCartItemQuantity(currentUser.uid, cartItem.productId, newQuantity)
-            .addOnSuccessListener {
-                val index = cartItems.indexOfFirst { it.productId == cartItem.productId }
-                if (index != -1) {
-                    cartItems[index].setQuantity(newQuantity)
-                    cartAdapter.notifyItemChanged(index)
-                    updateTotalPrice()
-                }
-            }
-            .addOnFailureListener { e ->
-                showError("Failed to update quantity")
-            }
+        // Applied locally at once; written to Firestore after the debounce window
+        cartViewModel.updateQuantity(cartItem, newQuantity)
     }
 
     private fun removeCartItem(cartItem: CartItem) {
-        val currentUser = firebaseHelper.getCurrentUser() ?: return
-        
-        firebaseHelper.removeFromCart(currentUser.uid, cartItem.productId)
-            .addOnSuccessListener {
-                val index = cartItems.indexOfFirst { it.productId == cartItem.productId }
-                if (index != -1) {
-                    cartItems.removeAt(index)
-                    cartAdapter.submitList(cartItems.toList())
-                    
-                    if (cartItems.isEmpty()) {
-                        showEmptyCart()
-                    }
-                    
-                    updateTotalPrice()
-                }
-            }
-            .addOnFailureListener { e ->
-                showError("Failed to remove item from cart")
-            }
+        cartViewModel.removeItem(cartItem)
     }
 
-    private fun updateTotalPrice() {
-        val total = cartItems.sumOf { it.getTotalPrice() }
-        val formattedTotal = NumberFormat.getCurrencyInstance(Locale.US).format(total)
+    // Shipping is only settled at checkout, so the cart shows what the items come to
+    private fun updateTotalPrice(quote: CartQuote) {
+        val formattedTotal = Formatters.formatPrice(quote.itemsTotal)
         binding.totalPriceText.text = getString(R.string.text_cart_total, formattedTotal)
     }
 
@@ -198,6 +190,12 @@ class CartFragment : Fragment() {
         )
     }
 
+    override fun onStop() {
+        super.onStop()
+        // Don't leave edits waiting on the debounce once the screen is gone
+        cartViewModel.flushCart()
+    }
+
     override fun onDestroyView() {
         super.onDestroyView()
         _binding = null
@@ -6,18 +6,23 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.Toast
 import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
 import androidx.navigation.fragment.findNavController
 import androidx.navigation.fragment.navArgs
 import androidx.recyclerview.widget.LinearLayoutManager
 import com.example.myshop.R
+import com.example.myshop.data.pricing.CartPricingEngine
+import com.example.myshop.data.pricing.PricingRules
 import com.example.myshop.databinding.FragmentCheckoutBinding
 import com.example.myshop.models.CartItem
+import com.example.myshop.models.Money
 import com.example.myshop.models.Order
+import com.example.myshop.models.OrderItem
 import com.example.myshop.ui.adapters.CartAdapter
+import com.example.myshop.ui.viewmodels.CartViewModel
 import com.example.myshop.utils.FirebaseHelper
-import java.text.NumberFormat
-import java.util.Date
-import java.util.Locale
+import com.example.myshop.utils.Formatters
+import com.google.firebase.firestore.FirebaseFirestoreException
 import java.util.UUID
 
 class CheckoutFragment : Fragment() {
@@ -27,10 +32,12 @@ class CheckoutFragment : Fragment() {
     
     private val args: CheckoutFragmentArgs by navArgs()
     private val firebaseHelper = FirebaseHelper.getInstance()
+    private val cartViewModel: CartViewModel by viewModels()
     private lateinit var cartAdapter: CartAdapter
     private var cartItems = listOf<CartItem>()
-    
-    private val SHIPPING_COST = 5.99 // Fixed shipping cost for simplicity
+
+    // Same rules the checkout transaction prices the order with
+    private val pricingRules = PricingRules.DEFAULT
 
     override fun onCreateView(
         inflater: LayoutInflater,
@@ -66,16 +73,17 @@ class CheckoutFragment : Fragment() {
     }
 
     private fun setupOrderSummary() {
-        val subtotal = cartItems.sumOf { it.getTotalPrice() }
-        val total = subtotal + SHIPPING_COST
+        val quote = CartPricingEngine.price(cartItems, pricingRules)
 
-        val formatter = NumberFormat.getCurrencyInstance(Locale.US)
-        
         binding.apply {
-            subtotalText.text = formatter.format(subtotal)
-            shippingText.text = formatter.format(SHIPPING_COST)
-            totalText.text = formatter.format(total)
-            bottomTotalText.text = getString(R.string.label_total_amount, formatter.format(total))
+            subtotalText.text = Formatters.formatPrice(quote.subtotal)
+            discountRow.visibility = if (quote.discount.isZero) View.GONE else View.VISIBLE
+            discountText.text = getString(R.string.text_discount_amount, Formatters.formatPrice(quote.discount))
+            taxRow.visibility = if (quote.tax.isZero) View.GONE else View.VISIBLE
+            taxText.text = Formatters.formatPrice(quote.tax)
+            shippingText.text = Formatters.formatPrice(quote.shipping)
+            totalText.text = Formatters.formatPrice(quote.total)
+            bottomTotalText.text = getString(R.string.label_total_amount, Formatters.formatPrice(quote.total))
         }
     }
 
@@ -130,52 +138,53 @@ class CheckoutFragment : Fragment() {
 
         showLoading(true)
 
+        // Total is left for the checkout transaction, which prices items from the product documents
         val order = Order(
-            orderId = UUID.randomUUID().toString(),
-            userId = currentUser.uid,
-            items = cartItems,
-            subtotal = cartItems.sumOf { it.getTotalPrice() },
-            shippingCost = SHIPPING_COST,
-            total = cartItems.sumOf { it.getTotalPrice() } + SHIPPING_COST,
-            shippingAddress = buildShippingAddress(),
-            status = "PENDING",
-            orderDate = Date()
+            UUID.randomUUID().toString(),
+            currentUser.uid,
+            cartItems.map(OrderItem::fromCartItem),
+            Money.ZERO,
+            buildShippingAddress(currentUser.displayName),
+            null // No payment step yet
         )
 
-        firebaseHelper.createOrder(order)
+        // Stock reservation, order creation and cart cleanup commit together
+        firebaseHelper.placeOrder(currentUser.uid, order, pricingRules)
             .addOnSuccessListener { documentRef ->
-                // Clear cart after successful order
-                firebaseHelper.clearCart(currentUser.uid)
-                    .addOnSuccessListener {
-                        showSuccess("Order placed successfully!")
-                        navigateToOrderConfirmation(documentRef.id)
-                    }
-                    .addOnFailureListener { e ->
-                        showError("Order placed but failed to clear cart")
-                        navigateToOrderConfirmation(documentRef.id)
-                    }
+                cartViewModel.clearLocalCart()
+                showSuccess("Order placed successfully!")
+                navigateToOrderConfirmation(documentRef.id)
             }
             .addOnFailureListener { e ->
-                showError("Failed to place order")
+                // Stock and availability failures carry a message meant for the user
+                val message = (e as? FirebaseFirestoreException)
+                    ?.takeIf { it.code == FirebaseFirestoreException.Code.FAILED_PRECONDITION ||
+                            it.code == FirebaseFirestoreException.Code.NOT_FOUND }
+                    ?.message
+                showError(message ?: "Failed to place order")
                 showLoading(false)
             }
     }
 
-    private fun buildShippingAddress(): String {
-        return buildString {
+    private fun buildShippingAddress(fullName: String?): Order.ShippingAddress {
+        val streetAddress = buildString {
             append(binding.addressLine1Input.text.toString().trim())
-            
+
             val addressLine2 = binding.addressLine2Input.text.toString().trim()
             if (addressLine2.isNotEmpty()) {
                 append("\n")
                 append(addressLine2)
             }
-            
-            append("\n")
-            append(binding.cityInput.text.toString().trim())
-            append(" ")
-            append(binding.zipCodeInput.text.toString().trim())
         }
+
+        return Order.ShippingAddress(
+            fullName ?: "",
+            streetAddress,
+            binding.cityInput.text.toString().trim(),
+            "",
+            binding.zipCodeInput.text.toString().trim(),
+            ""
+        )
     }
 
     private fun navigateToOrderConfirmation(orderId: String) {
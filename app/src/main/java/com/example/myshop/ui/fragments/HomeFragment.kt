@@ -5,24 +5,36 @@ import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.Toast
+import androidx.appcompat.widget.SearchView
 import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
+import androidx.lifecycle.lifecycleScope
 import androidx.navigation.fragment.findNavController
+import androidx.paging.LoadState
 import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.LinearLayoutManager
+import com.bumptech.glide.Glide
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader
+import com.bumptech.glide.util.ViewPreloadSizeProvider
 import com.example.myshop.R
 import com.example.myshop.databinding.FragmentHomeBinding
 import com.example.myshop.models.Product
 import com.example.myshop.ui.adapters.ProductAdapter
 import com.example.myshop.ui.adapters.CategoryAdapter
-import com.example.myshop.utils.FirebaseHelper
-import com.google.firebase.firestore.QuerySnapshot
+import com.example.myshop.ui.viewmodels.FavoritesViewModel
+import com.example.myshop.ui.viewmodels.ProductViewModel
+import com.example.myshop.utils.PreferenceHelper
+import com.example.myshop.utils.Resource
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.launch
 
 class HomeFragment : Fragment() {
 
     private var _binding: FragmentHomeBinding? = null
     private val binding get() = _binding!!
     
-    private val firebaseHelper = FirebaseHelper.getInstance()
+    private val productViewModel: ProductViewModel by viewModels()
+    private val favoritesViewModel: FavoritesViewModel by viewModels()
     private lateinit var productAdapter: ProductAdapter
     private lateinit var categoryAdapter: CategoryAdapter
 
@@ -40,17 +52,28 @@ class HomeFragment : Fragment() {
         
         setupRecyclerViews()
         setupSwipeRefresh()
-        loadData()
+        setupSearch()
+        observeProducts()
+        observeFavorites()
+        loadCategories()
     }
 
     private fun setupRecyclerViews() {
         // Setup Featured Products RecyclerView
-        productAdapter = ProductAdapter { product ->
-            navigateToProductDetail(product)
-        }
+        val requestManager = Glide.with(this)
+        val preloadSizeProvider = ViewPreloadSizeProvider<Product>()
+        productAdapter = ProductAdapter(
+            requestManager,
+            preloadSizeProvider,
+            onFavoriteClick = { product -> favoritesViewModel.toggleFavorite(product.id) },
+            onProductClick = { product -> navigateToProductDetail(product) }
+        )
         binding.featuredProductsRecyclerView.apply {
-            layoutManager = GridLayoutManager(context, 2)
+            layoutManager = GridLayoutManager(context, GRID_SPAN_COUNT)
             adapter = productAdapter
+            addOnScrollListener(
+                RecyclerViewPreloader(requestManager, productAdapter, preloadSizeProvider, PRELOAD_ROWS * GRID_SPAN_COUNT)
+            )
         }
 
         // Setup Categories RecyclerView
@@ -65,40 +88,82 @@ class HomeFragment : Fragment() {
 
     private fun setupSwipeRefresh() {
         binding.swipeRefreshLayout.setOnRefreshListener {
-            loadData()
+            productAdapter.refresh()
+        }
+        // Only pull to refresh once the product grid is scrolled back to the top
+        binding.swipeRefreshLayout.setOnChildScrollUpCallback { _, _ ->
+            binding.featuredProductsRecyclerView.canScrollVertically(-1)
         }
     }
 
-    private fun loadData() {
-        binding.swipeRefreshLayout.isRefreshing = true
+    private fun setupSearch() {
+        binding.searchView.setOnQueryTextListener(object : SearchView.OnQueryTextListener {
+            override fun onQueryTextSubmit(query: String): Boolean {
+                if (query.isNotBlank()) {
+                    PreferenceHelper.getInstance(requireContext()).addToSearchHistory(query.trim())
+                }
+                binding.searchView.clearFocus()
+                return true
+            }
 
-        // Load featured products
-        firebaseHelper.getAllProducts()
-            .addOnSuccessListener { querySnapshot ->
-                handleProductsResponse(querySnapshot)
-                binding.swipeRefreshLayout.isRefreshing = false
+            override fun onQueryTextChange(newText: String): Boolean {
+                // Search results are a single static page, so there is nothing to pull to refresh
+                binding.swipeRefreshLayout.isEnabled = newText.isBlank()
+                productViewModel.setSearchQuery(newText)
+                return true
             }
-            .addOnFailureListener { e ->
-                handleError(e)
-                binding.swipeRefreshLayout.isRefreshing = false
+        })
+
+        productViewModel.searchError.observe(viewLifecycleOwner) { message ->
+            Toast.makeText(context, message, Toast.LENGTH_SHORT).show()
+        }
+    }
+
+    private fun observeProducts() {
+        // Featured products are loaded a page at a time as the grid scrolls
+        viewLifecycleOwner.lifecycleScope.launch {
+            productViewModel.products.collectLatest { pagingData ->
+                productAdapter.submitData(pagingData)
             }
+        }
 
-        // Load categories (you might want to create a separate collection for categories in Firebase)
-        loadCategories()
+        viewLifecycleOwner.lifecycleScope.launch {
+            productAdapter.loadStateFlow.collectLatest { loadStates ->
+                handleLoadStates(loadStates.refresh, loadStates.append.endOfPaginationReached)
+            }
+        }
     }
 
-    private fun handleProductsResponse(querySnapshot: QuerySnapshot) {
-        val products = querySnapshot.documents.mapNotNull { document ->
-            document.toObject(Product::class.java)
+    private fun observeFavorites() {
+        // Local mirror; a toggle shows before Firestore has it
+        favoritesViewModel.favoriteIds.observe(viewLifecycleOwner, productAdapter::submitFavorites)
+
+        favoritesViewModel.operationStatus.observe(viewLifecycleOwner) { event ->
+            if (event.getContentIfNotHandled() is Resource.Error) {
+                Toast.makeText(context, getString(R.string.error_favorite_failed), Toast.LENGTH_SHORT).show()
+            }
         }
-        
-        if (products.isEmpty()) {
+
+        favoritesViewModel.refresh()
+    }
+
+    private fun handleLoadStates(refreshState: LoadState, endOfPaginationReached: Boolean) {
+        binding.swipeRefreshLayout.isRefreshing = refreshState is LoadState.Loading
+
+        if (refreshState is LoadState.Error) {
+            handleError(refreshState.error)
+        }
+
+        val isEmpty = refreshState is LoadState.NotLoading &&
+                endOfPaginationReached &&
+                productAdapter.itemCount == 0
+
+        if (isEmpty) {
             binding.noProductsText.visibility = View.VISIBLE
             binding.featuredProductsRecyclerView.visibility = View.GONE
         } else {
             binding.noProductsText.visibility = View.GONE
             binding.featuredProductsRecyclerView.visibility = View.VISIBLE
-            productAdapter.submitList(products)
         }
     }
 
@@ -129,7 +194,7 @@ class HomeFragment : Fragment() {
         )
     }
 
-    private fun handleError(exception: Exception) {
+    private fun handleError(throwable: Throwable) {
         Toast.makeText(
             context,
             getString(R.string.error_network),
@@ -144,5 +209,8 @@ class HomeFragment : Fragment() {
 
     companion object {
         private const val TAG = "HomeFragment"
+        private const val GRID_SPAN_COUNT = 2
+        // Enough to stay ahead of a fling without decoding far past it
+        private const val PRELOAD_ROWS = 4
     }
 }
@@ -1,26 +1,22 @@
 package com.example.myshop.ui.fragments
 
-import android.content.BroadcastReceiver
-import android.content.Context
-import android.content.Intent
-import android.content.IntentFilter
 import android.os.Bundle
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.Toast
 import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
 import androidx.navigation.fragment.navArgs
 import androidx.recyclerview.widget.LinearLayoutManager
 import com.example.myshop.R
 import com.example.myshop.databinding.FragmentOrderDetailsBinding
 import com.example.myshop.models.Order
 import com.example.myshop.ui.adapters.CartAdapter
+import com.example.myshop.ui.viewmodels.OrderViewModel
 import com.example.myshop.utils.Constants
-import com.example.myshop.utils.FirebaseHelper
-import java.text.NumberFormat
-import java.text.SimpleDateFormat
-import java.util.Locale
+import com.example.myshop.utils.Formatters
+import com.example.myshop.utils.Resource
 
 class OrderDetailsFragment : Fragment() {
 
@@ -28,21 +24,10 @@ class OrderDetailsFragment : Fragment() {
     private val binding get() = _binding!!
     
     private val args: OrderDetailsFragmentArgs by navArgs()
-    private val firebaseHelper = FirebaseHelper.getInstance()
+    private val orderViewModel: OrderViewModel by viewModels()
     private lateinit var cartAdapter: CartAdapter
     private var currentOrder: Order? = null
 
-    private val orderUpdateReceiver = object : BroadcastReceiver() {
-        override fun onReceive(context: Context?, intent: Intent?) {
-            if (intent?.action == Constants.ACTION_ORDER_UPDATED) {
-                val orderId = intent.getStringExtra(Constants.EXTRA_ORDER_ID)
-                if (orderId == args.orderId) {
-                    loadOrderDetails()
-                }
-            }
-        }
-    }
-
     override fun onCreateView(
         inflater: LayoutInflater,
         container: ViewGroup?,
@@ -56,13 +41,7 @@ class OrderDetailsFragment : Fragment() {
         super.onViewCreated(view, savedInstanceState)
         
         setupRecyclerView()
-        loadOrderDetails()
-
-        // Register broadcast receiver for order updates
-        requireContext().registerReceiver(
-            orderUpdateReceiver,
-            IntentFilter(Constants.ACTION_ORDER_UPDATED)
-        )
+        observeOrder()
     }
 
     private fun setupRecyclerView() {
@@ -77,48 +56,45 @@ class OrderDetailsFragment : Fragment() {
         }
     }
 
-    private fun loadOrderDetails() {
-        showLoading(true)
-
-        firebaseHelper.getOrderById(args.orderId)
-            .addOnSuccessListener { documentSnapshot ->
-                val order = documentSnapshot.toObject(Order::class.java)
-                if (order != null) {
-                    currentOrder = order
-                    updateUI(order)
-                } else {
-                    showError("Order not found")
+    private fun observeOrder() {
+        // Status changes pushed by Firestore re-render the screen as they arrive
+        orderViewModel.observeOrder(args.orderId).observe(viewLifecycleOwner) { resource ->
+            when (resource) {
+                is Resource.Loading -> showLoading(currentOrder == null)
+                is Resource.Success -> {
+                    resource.data?.let { order ->
+                        currentOrder = order
+                        updateUI(order)
+                    }
+                    showLoading(false)
+                }
+                is Resource.Error -> {
+                    showError(resource.message ?: "Failed to load order details")
+                    showLoading(false)
                 }
-                showLoading(false)
-            }
-            .addOnFailureListener { e ->
-                showError("Failed to load order details")
-                showLoading(false)
             }
+        }
     }
 
     private fun updateUI(order: Order) {
-        val formatter = NumberFormat.getCurrencyInstance(Locale.US)
-        val dateFormatter = SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault())
-
         binding.apply {
             // Update order status with appropriate color
             orderStatusText.text = order.status
             orderStatusText.setTextColor(getStatusColor(order.status))
             
             // Update order date
-            orderDateText.text = dateFormatter.format(order.orderDate)
+            orderDateText.text = Formatters.formatDate(order.orderDate, Formatters.ORDER_DATE_PATTERN)
 
             // Update order items
-            cartAdapter.submitList(order.items)
+            cartAdapter.submitList(order.lineItems)
 
             // Update shipping address
             shippingAddressText.text = order.shippingAddress
 
             // Update price details
-            subtotalText.text = formatter.format(order.subtotal)
-            shippingText.text = formatter.format(order.shippingCost)
-            totalText.text = formatter.format(order.total)
+            subtotalText.text = Formatters.formatPrice(order.subtotal)
+            shippingText.text = Formatters.formatPrice(order.shippingCost)
+            totalText.text = Formatters.formatPrice(order.total)
         }
     }
 
@@ -146,12 +122,6 @@ class OrderDetailsFragment : Fragment() {
 
     override fun onDestroyView() {
         super.onDestroyView()
-        try {
-            // Unregister broadcast receiver
-            requireContext().unregisterReceiver(orderUpdateReceiver)
-        } catch (e: IllegalArgumentException) {
-            // Receiver not registered
-        }
         _binding = null
     }
 }
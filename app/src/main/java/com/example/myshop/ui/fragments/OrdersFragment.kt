@@ -0,0 +1,100 @@
+package com.example.myshop.ui.fragments
+
+import android.os.Bundle
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.Toast
+import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
+import androidx.lifecycle.lifecycleScope
+import androidx.navigation.fragment.findNavController
+import androidx.paging.CombinedLoadStates
+import androidx.paging.LoadState
+import androidx.recyclerview.widget.LinearLayoutManager
+import com.example.myshop.R
+import com.example.myshop.databinding.FragmentOrdersBinding
+import com.example.myshop.models.Order
+import com.example.myshop.ui.adapters.OrderAdapter
+import com.example.myshop.ui.viewmodels.OrderViewModel
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.launch
+
+class OrdersFragment : Fragment() {
+
+    private var _binding: FragmentOrdersBinding? = null
+    private val binding get() = _binding!!
+
+    private val orderViewModel: OrderViewModel by viewModels()
+    private lateinit var orderAdapter: OrderAdapter
+
+    override fun onCreateView(
+        inflater: LayoutInflater,
+        container: ViewGroup?,
+        savedInstanceState: Bundle?
+    ): View {
+        _binding = FragmentOrdersBinding.inflate(inflater, container, false)
+        return binding.root
+    }
+
+    override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
+        super.onViewCreated(view, savedInstanceState)
+
+        setupRecyclerView()
+        observeOrders()
+    }
+
+    private fun setupRecyclerView() {
+        orderAdapter = OrderAdapter { order ->
+            navigateToOrderDetails(order)
+        }
+        binding.ordersRecyclerView.apply {
+            layoutManager = LinearLayoutManager(context)
+            adapter = orderAdapter
+        }
+        binding.swipeRefreshLayout.setOnRefreshListener {
+            orderAdapter.refresh()
+        }
+    }
+
+    private fun observeOrders() {
+        // Orders arrive a page at a time as the list scrolls
+        viewLifecycleOwner.lifecycleScope.launch {
+            orderViewModel.userOrders.collectLatest { pagingData ->
+                orderAdapter.submitData(pagingData)
+            }
+        }
+
+        viewLifecycleOwner.lifecycleScope.launch {
+            orderAdapter.loadStateFlow.collectLatest { loadStates ->
+                handleLoadStates(loadStates)
+            }
+        }
+    }
+
+    private fun handleLoadStates(loadStates: CombinedLoadStates) {
+        val refreshState = loadStates.refresh
+        binding.swipeRefreshLayout.isRefreshing = refreshState is LoadState.Loading
+
+        val error = (refreshState as? LoadState.Error) ?: (loadStates.append as? LoadState.Error)
+        if (error != null) {
+            Toast.makeText(context, getString(R.string.error_network), Toast.LENGTH_SHORT).show()
+        }
+
+        val isEmpty = refreshState is LoadState.NotLoading &&
+                loadStates.append.endOfPaginationReached &&
+                orderAdapter.itemCount == 0
+        binding.noOrdersText.visibility = if (isEmpty) View.VISIBLE else View.GONE
+    }
+
+    private fun navigateToOrderDetails(order: Order) {
+        findNavController().navigate(
+            OrdersFragmentDirections.actionOrdersToOrderDetails(order.orderId)
+        )
+    }
+
+    override fun onDestroyView() {
+        super.onDestroyView()
+        _binding = null
+    }
+}
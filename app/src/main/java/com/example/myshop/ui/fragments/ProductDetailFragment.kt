@@ -6,16 +6,19 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.Toast
 import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
 import androidx.navigation.fragment.findNavController
 import androidx.navigation.fragment.navArgs
 import com.bumptech.glide.Glide
 import com.example.myshop.R
 import com.example.myshop.databinding.FragmentProductDetailBinding
+import com.example.myshop.images.ProductImages
 import com.example.myshop.models.CartItem
 import com.example.myshop.models.Product
+import com.example.myshop.ui.viewmodels.ProductViewModel
 import com.example.myshop.utils.FirebaseHelper
-import java.text.NumberFormat
-import java.util.Locale
+import com.example.myshop.utils.Formatters
+import com.example.myshop.utils.Resource
 
 class ProductDetailFragment : Fragment() {
 
@@ -24,6 +27,7 @@ class ProductDetailFragment : Fragment() {
     
     private val args: ProductDetailFragmentArgs by navArgs()
     private val firebaseHelper = FirebaseHelper.getInstance()
+    private val productViewModel: ProductViewModel by viewModels()
     private var currentProduct: Product? = null
     private var currentQuantity = 1
 
@@ -40,6 +44,7 @@ class ProductDetailFragment : Fragment() {
         super.onViewCreated(view, savedInstanceState)
         
         setupQuantityControls()
+        observeProduct()
         loadProductDetails()
         setupButtons()
     }
@@ -62,34 +67,37 @@ class ProductDetailFragment : Fragment() {
         }
     }
 
-    private fun loadProductDetails() {
-        showLoading(true)
-        
-        firebaseHelper.getProductById(args.productId)
-            .addOnSuccessListener { product ->
-                if (product != null) {
-                    currentProduct = product
-                    updateUI(product)
-                } else {
-                    showError("Product not found")
+    private fun observeProduct() {
+        productViewModel.product.observe(viewLifecycleOwner) { resource ->
+            when (resource) {
+                is Resource.Loading -> showLoading(true)
+                is Resource.Success -> {
+                    showLoading(false)
+                    resource.data?.let { product ->
+                        currentProduct = product
+                        updateUI(product)
+                    }
+                }
+                is Resource.Error -> {
+                    showLoading(false)
+                    showError(resource.message ?: "Failed to load product details")
                     findNavController().navigateUp()
                 }
-                showLoading(false)
-            }
-            .addOnFailureListener { e ->
-                showError("Failed to load product details")
-                showLoading(false)
-                findNavController().navigateUp()
             }
+        }
+    }
+
+    private fun loadProductDetails() {
+        // Served from the local catalog when it has been synced
+        if (productViewModel.product.value?.data?.id != args.productId) {
+            productViewModel.loadProduct(args.productId)
+        }
     }
 
     private fun updateUI(product: Product) {
         binding.apply {
             // Load product image
-            Glide.with(productImage)
-                .load(product.imageUrl)
-                .placeholder(R.drawable.placeholder_product)
-                .error(R.drawable.error_product)
+            ProductImages.detail(Glide.with(this@ProductDetailFragment), product)
                 .into(productImage)
 
             // Set product details
@@ -97,9 +105,7 @@ class ProductDetailFragment : Fragment() {
             productDescription.text = product.description
             
             // Format and set price
-            val formattedPrice = NumberFormat.getCurrencyInstance(Locale.US)
-                .format(product.price)
-            productPrice.text = formattedPrice
+            productPrice.text = Formatters.formatPrice(product.price)
 
             // Update stock status
             if (product.stockQuantity > 0) {
@@ -127,9 +133,8 @@ class ProductDetailFragment : Fragment() {
 
             // Update total price
             currentProduct?.let { product ->
-                val total = product.price * currentQuantity
-                val formattedTotal = NumberFormat.getCurrencyInstance(Locale.US)
-                    .format(total)
+                val total = product.price.times(currentQuantity)
+                val formattedTotal = Formatters.formatPrice(total)
                 totalPrice.text = getString(R.string.label_price, formattedTotal)
             }
         }
@@ -162,9 +167,9 @@ class ProductDetailFragment : Fragment() {
             productId = product.id,
             productName = product.name,
             productPrice = product.price,
-            productImage = product.imageUrl,
+            productImage = ProductImages.thumbnailUrl(product),
             quantity = currentQuantity
-        )
+        ).apply { category = product.category }
 
         firebaseHelper.addToCart(currentUser.uid, cartItem)
             .addOnSuccessListener {
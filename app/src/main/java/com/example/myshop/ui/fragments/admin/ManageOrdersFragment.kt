@@ -0,0 +1,182 @@
+package com.example.myshop.ui.fragments.admin
+
+import android.os.Bundle
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.Toast
+import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
+import androidx.lifecycle.lifecycleScope
+import androidx.navigation.fragment.findNavController
+import androidx.paging.CombinedLoadStates
+import androidx.paging.LoadState
+import androidx.recyclerview.widget.LinearLayoutManager
+import com.example.myshop.R
+import com.example.myshop.databinding.FragmentManageOrdersBinding
+import com.example.myshop.models.Order
+import com.example.myshop.ui.adapters.OrderAdapter
+import com.example.myshop.ui.viewmodels.OrderViewModel
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.Resource
+import com.google.android.material.chip.Chip
+import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.launch
+
+class ManageOrdersFragment : Fragment() {
+
+    private var _binding: FragmentManageOrdersBinding? = null
+    private val binding get() = _binding!!
+
+    private val orderViewModel: OrderViewModel by viewModels()
+    private lateinit var orderAdapter: OrderAdapter
+
+    private val statuses = listOf(
+        Constants.ORDER_STATUS_PENDING,
+        Constants.ORDER_STATUS_CONFIRMED,
+        Constants.ORDER_STATUS_SHIPPED,
+        Constants.ORDER_STATUS_DELIVERED,
+        Constants.ORDER_STATUS_CANCELLED
+    )
+
+    // Where the bulk action sends each status
+    private val nextStatuses = mapOf(
+        Constants.ORDER_STATUS_PENDING to Constants.ORDER_STATUS_CONFIRMED,
+        Constants.ORDER_STATUS_CONFIRMED to Constants.ORDER_STATUS_SHIPPED,
+        Constants.ORDER_STATUS_SHIPPED to Constants.ORDER_STATUS_DELIVERED
+    )
+
+    override fun onCreateView(
+        inflater: LayoutInflater,
+        container: ViewGroup?,
+        savedInstanceState: Bundle?
+    ): View {
+        _binding = FragmentManageOrdersBinding.inflate(inflater, container, false)
+        return binding.root
+    }
+
+    override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
+        super.onViewCreated(view, savedInstanceState)
+
+        setupRecyclerView()
+        setupStatusFilter()
+        setupAdvanceButton()
+        observeOrders()
+    }
+
+    private fun setupRecyclerView() {
+        orderAdapter = OrderAdapter { order ->
+            navigateToOrderDetails(order)
+        }
+        binding.ordersRecyclerView.apply {
+            layoutManager = LinearLayoutManager(context)
+            adapter = orderAdapter
+        }
+        binding.swipeRefreshLayout.setOnRefreshListener {
+            orderAdapter.refresh()
+        }
+    }
+
+    private fun setupStatusFilter() {
+        // A null tag stands for every status
+        (listOf<String?>(null) + statuses).forEach { status ->
+            val chip = Chip(requireContext()).apply {
+                text = status ?: getString(R.string.filter_all_orders)
+                tag = status
+                isCheckable = true
+                isChecked = status == null
+            }
+            binding.statusChipGroup.addView(chip)
+        }
+
+        binding.statusChipGroup.setOnCheckedStateChangeListener { group, checkedIds ->
+            val status = checkedIds.firstOrNull()?.let { group.findViewById<Chip>(it).tag as String? }
+            orderViewModel.setStatusFilter(status)
+            updateAdvanceButton(status)
+        }
+    }
+
+    private fun setupAdvanceButton() {
+        orderViewModel.bulkUpdateStatus.observe(viewLifecycleOwner) { resource ->
+            binding.loadingProgress.visibility = if (resource is Resource.Loading) View.VISIBLE else View.GONE
+            binding.advanceOrdersButton.isEnabled = resource !is Resource.Loading
+            when (resource) {
+                is Resource.Success -> {
+                    val count = resource.data ?: 0
+                    showMessage(resources.getQuantityString(R.plurals.text_orders_updated, count, count))
+                    orderAdapter.refresh()
+                }
+                is Resource.Error -> {
+                    showMessage(resource.message ?: getString(R.string.error_network))
+                    orderAdapter.refresh()
+                }
+                else -> Unit
+            }
+        }
+    }
+
+    private fun updateAdvanceButton(status: String?) {
+        val nextStatus = status?.let { nextStatuses[it] }
+        binding.advanceOrdersButton.apply {
+            visibility = if (nextStatus != null) View.VISIBLE else View.GONE
+            if (status == null || nextStatus == null) return
+            text = getString(R.string.btn_advance_orders, nextStatus)
+            setOnClickListener { confirmAdvance(status, nextStatus) }
+        }
+    }
+
+    private fun confirmAdvance(fromStatus: String, toStatus: String) {
+        MaterialAlertDialogBuilder(requireContext())
+            .setMessage(getString(R.string.text_advance_orders_confirm, fromStatus, toStatus))
+            .setNegativeButton(android.R.string.cancel, null)
+            .setPositiveButton(android.R.string.ok) { _, _ ->
+                orderViewModel.advanceOrders(fromStatus, toStatus)
+            }
+            .show()
+    }
+
+    private fun observeOrders() {
+        viewLifecycleOwner.lifecycleScope.launch {
+            orderViewModel.adminOrders.collectLatest { pagingData ->
+                orderAdapter.submitData(pagingData)
+            }
+        }
+
+        viewLifecycleOwner.lifecycleScope.launch {
+            orderAdapter.loadStateFlow.collectLatest { loadStates ->
+                handleLoadStates(loadStates)
+            }
+        }
+    }
+
+    private fun handleLoadStates(loadStates: CombinedLoadStates) {
+        val refreshState = loadStates.refresh
+        binding.swipeRefreshLayout.isRefreshing = refreshState is LoadState.Loading
+
+        val error = (refreshState as? LoadState.Error) ?: (loadStates.append as? LoadState.Error)
+        if (error != null) {
+            Toast.makeText(context, getString(R.string.error_network), Toast.LENGTH_SHORT).show()
+        }
+
+        val isEmpty = refreshState is LoadState.NotLoading &&
+                loadStates.append.endOfPaginationReached &&
+                orderAdapter.itemCount == 0
+        binding.noOrdersText.visibility = if (isEmpty) View.VISIBLE else View.GONE
+    }
+
+    private fun showMessage(message: String) {
+        Toast.makeText(context, message, Toast.LENGTH_SHORT).show()
+    }
+
+    private fun navigateToOrderDetails(order: Order) {
+        findNavController().navigate(
+            ManageOrdersFragmentDirections.actionManageOrdersToOrderDetails(order.orderId)
+        )
+    }
+
+    override fun onDestroyView() {
+        super.onDestroyView()
+        _binding = null
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.myshop.ui.viewmodels
+
+import android.app.Application
+import androidx.lifecycle.AndroidViewModel
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.MutableLiveData
+import androidx.lifecycle.asLiveData
+import androidx.lifecycle.map
+import androidx.lifecycle.viewModelScope
+import com.example.myshop.data.AppDatabase
+import com.example.myshop.data.pricing.CartPricingEngine
+import com.example.myshop.data.pricing.CartQuote
+import com.example.myshop.data.repository.CartRepository
+import com.example.myshop.data.sync.CartFlushWorker
+import com.example.myshop.models.CartItem
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.Resource
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.emptyFlow
+import kotlinx.coroutines.launch
+
+class CartViewModel(application: Application) : AndroidViewModel(application) {
+
+    private val repository: CartRepository
+    private val currentUserId: String? = FirebaseHelper.getInstance().getCurrentUser()?.uid
+
+    private val pricingEngine = CartPricingEngine()
+
+    private var flushJob: Job? = null
+
+    private val _operationStatus = MutableLiveData<Resource<Unit>>()
+    val operationStatus: LiveData<Resource<Unit>> = _operationStatus
+
+    init {
+        val cartDao = AppDatabase.getInstance(application).cartDao()
+        repository = CartRepository(cartDao)
+    }
+
+    // Emits immediately after every local edit, before anything reaches Firestore
+    val cartItems: LiveData<List<CartItem>> =
+        (currentUserId?.let { userId -> repository.getCartItems(userId) } ?: emptyFlow()).asLiveData()
+
+    // Only lines that changed since the last emission are repriced
+    val quote: LiveData<CartQuote> = cartItems.map(pricingEngine::submit)
+
+    fun refreshCart() {
+        val userId = currentUserId ?: return
+        _operationStatus.value = Resource.Loading()
+        viewModelScope.launch {
+            _operationStatus.value = repository.refresh(userId)
+        }
+    }
+
+    fun updateQuantity(cartItem: CartItem, quantity: Int) {
+        val userId = currentUserId ?: return
+        viewModelScope.launch {
+            repository.updateQuantity(userId, cartItem.productId, quantity)
+            scheduleFlush(userId)
+        }
+    }
+
+    fun removeItem(cartItem: CartItem) {
+        val userId = currentUserId ?: return
+        viewModelScope.launch {
+            repository.removeFromCart(userId, cartItem.productId)
+            scheduleFlush(userId)
+        }
+    }
+
+    fun clearLocalCart() {
+        val userId = currentUserId ?: return
+        flushJob?.cancel()
+        viewModelScope.launch {
+            repository.clearLocalCart(userId)
+        }
+    }
+
+    // Pushes pending edits when the cart screen goes away. It runs as WorkManager work
+    // rather than in viewModelScope, which is cleared right after.
+    fun flushCart() {
+        val userId = currentUserId ?: return
+        flushJob?.cancel()
+        CartFlushWorker.enqueue(getApplication(), userId)
+    }
+
+    // Restarts the debounce window so a burst of taps becomes one batch
+    private fun scheduleFlush(userId: String) {
+        flushJob?.cancel()
+        flushJob = viewModelScope.launch {
+            delay(Constants.CART_FLUSH_DEBOUNCE_MS)
+            reportFlushResult(repository.flush(userId))
+        }
+    }
+
+    private fun reportFlushResult(result: Resource<Unit>) {
+        if (result is Resource.Error) {
+            _operationStatus.value = result
+        }
+    }
+}
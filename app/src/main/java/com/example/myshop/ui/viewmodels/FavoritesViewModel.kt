@@ -0,0 +1,50 @@
+package com.example.myshop.ui.viewmodels
+
+import android.app.Application
+import androidx.lifecycle.AndroidViewModel
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.MutableLiveData
+import androidx.lifecycle.asLiveData
+import androidx.lifecycle.viewModelScope
+import com.example.myshop.data.AppDatabase
+import com.example.myshop.data.repository.FavoritesRepository
+import com.example.myshop.utils.Event
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.Resource
+import kotlinx.coroutines.flow.emptyFlow
+import kotlinx.coroutines.launch
+
+class FavoritesViewModel(application: Application) : AndroidViewModel(application) {
+
+    private val repository = FavoritesRepository(AppDatabase.getInstance(application).favoriteDao())
+    private val currentUserId: String? = FirebaseHelper.getInstance().getCurrentUser()?.uid
+
+    // One-shot, so a recreated view does not toast an error it has already shown
+    private val _operationStatus = MutableLiveData<Event<Resource<Unit>>>()
+    val operationStatus: LiveData<Event<Resource<Unit>>> = _operationStatus
+
+    // Emits as soon as a toggle lands in Room, before Firestore has it
+    val favoriteIds: LiveData<Set<String>> =
+        (currentUserId?.let { userId -> repository.getFavoriteIds(userId) } ?: emptyFlow()).asLiveData()
+
+    fun refresh() {
+        val userId = currentUserId ?: return
+        viewModelScope.launch {
+            reportResult(repository.refresh(userId))
+        }
+    }
+
+    fun toggleFavorite(productId: String) {
+        val userId = currentUserId ?: return
+        viewModelScope.launch {
+            repository.toggle(userId, productId)
+            reportResult(repository.sync(userId))
+        }
+    }
+
+    private fun reportResult(result: Resource<Unit>) {
+        if (result is Resource.Error) {
+            _operationStatus.value = Event(result)
+        }
+    }
+}
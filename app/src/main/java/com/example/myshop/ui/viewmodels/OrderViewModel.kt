@@ -0,0 +1,120 @@
+package com.example.myshop.ui.viewmodels
+
+import android.app.Application
+import androidx.lifecycle.AndroidViewModel
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.MediatorLiveData
+import androidx.lifecycle.asLiveData
+import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.example.myshop.R
+import com.example.myshop.data.repository.OrderRepository
+import com.example.myshop.data.sync.OrderStatusWorker
+import com.example.myshop.models.Order
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.FirebaseHelper
+import com.example.myshop.utils.Resource
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.emptyFlow
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onStart
+
+class OrderViewModel(application: Application) : AndroidViewModel(application) {
+
+    private val repository: OrderRepository = OrderRepository.getInstance(application)
+
+    private val currentUserId: String? = FirebaseHelper.getInstance().getCurrentUser()?.uid
+    private val statusFilter = MutableStateFlow<String?>(null)
+
+    // The signed-in user's order history, newest first
+    val userOrders: Flow<PagingData<Order>> =
+        (currentUserId?.let { repository.getUserOrders(it) } ?: emptyFlow())
+            .cachedIn(viewModelScope)
+
+    // Admin console list; switching the filter starts a new pager
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val adminOrders: Flow<PagingData<Order>> = statusFilter
+        .flatMapLatest { status -> repository.getAllOrders(status) }
+        .cachedIn(viewModelScope)
+
+    // Set while a move started or seen running from here hasn't reported its result
+    private var awaitingBulkResult = false
+
+    // Progress and result of the bulk move, which runs in OrderStatusWorker. Moves that
+    // finished before this screen opened are not reported again.
+    private val _bulkUpdateStatus = MediatorLiveData<Resource<Int>>().apply {
+        addSource(OrderStatusWorker.observe(application)) { infos ->
+            val info = infos.lastOrNull() ?: return@addSource
+            if (info.state.isFinished && !awaitingBulkResult) return@addSource
+            awaitingBulkResult = !info.state.isFinished
+            value = OrderStatusWorker.resourceOf(info)
+        }
+    }
+    val bulkUpdateStatus: LiveData<Resource<Int>> = _bulkUpdateStatus
+
+    fun setStatusFilter(status: String?) {
+        statusFilter.value = status
+    }
+
+    // Admin end-of-day action, e.g. ship every confirmed order
+    fun advanceOrders(fromStatus: String, toStatus: String) {
+        val (titleRes, messageRes) = notificationText(toStatus) ?: return
+        val context = getApplication<Application>()
+        awaitingBulkResult = true
+        _bulkUpdateStatus.value = Resource.Loading(0)
+        OrderStatusWorker.enqueue(
+            context,
+            fromStatus,
+            toStatus,
+            context.getString(titleRes),
+            // Left as a template so each order's id is filled in
+            context.getString(messageRes, "%1\$s")
+        )
+    }
+
+    private fun notificationText(status: String): Pair<Int, Int>? {
+        return when (status) {
+            Constants.ORDER_STATUS_CONFIRMED -> R.string.order_confirmed to R.string.order_status_message_confirmed
+            Constants.ORDER_STATUS_SHIPPED -> R.string.order_shipped to R.string.order_status_message_shipped
+            Constants.ORDER_STATUS_DELIVERED -> R.string.order_delivered to R.string.order_status_message_delivered
+            Constants.ORDER_STATUS_CANCELLED -> R.string.order_cancelled to R.string.order_status_message_cancelled
+            else -> null
+        }
+    }
+
+    private var observedOrderId: String? = null
+    private var observedOrder: LiveData<Resource<Order>>? = null
+
+    // Only collects while the observer is started, so a backgrounded screen drops its listener.
+    // The repository flow is looked up each time collection starts, so a LiveData reused after
+    // the repository dropped its shared flow picks up the current one instead of the old one.
+    fun observeOrder(orderId: String): LiveData<Resource<Order>> {
+        observedOrder?.takeIf { observedOrderId == orderId }?.let { return it }
+
+        lateinit var order: LiveData<Resource<Order>>
+        // Product details come from cache after the first event, so status updates stay cheap
+        order = flow { emitAll(repository.observeOrder(orderId)) }
+            .map<Order, Resource<Order>> { Resource.Success(repository.hydrateItems(it)) }
+            .onStart { emit(Resource.Loading()) }
+            .catch { e ->
+                // The repository drops a failed flow; drop this LiveData with it so the next
+                // call starts a new listener
+                if (observedOrder === order) {
+                    observedOrderId = null
+                    observedOrder = null
+                }
+                emit(Resource.Error("Failed to load order details: ${e.message}", e))
+            }
+            .asLiveData()
+        observedOrderId = orderId
+        observedOrder = order
+        return order
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.myshop.ui.viewmodels
+
+import android.app.Application
+import androidx.lifecycle.AndroidViewModel
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.MutableLiveData
+import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.example.myshop.data.AppDatabase
+import com.example.myshop.data.repository.ProductRepository
+import com.example.myshop.models.Product
+import com.example.myshop.utils.Constants
+import com.example.myshop.utils.PreferenceHelper
+import com.example.myshop.utils.Resource
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+
+class ProductViewModel(application: Application) : AndroidViewModel(application) {
+
+    private val repository: ProductRepository
+
+    private val _product = MutableLiveData<Resource<Product>>()
+    val product: LiveData<Resource<Product>> = _product
+
+    private val _searchError = MutableLiveData<String>()
+    val searchError: LiveData<String> = _searchError
+
+    private val searchQuery = MutableStateFlow("")
+
+    init {
+        val productDao = AppDatabase.getInstance(application).productDao()
+        repository = ProductRepository(productDao, PreferenceHelper.getInstance(application))
+    }
+
+    // Cached so configuration changes reuse the pages already loaded
+    private val catalog: Flow<PagingData<Product>> = repository.getProducts()
+        .cachedIn(viewModelScope)
+
+    // The paged catalog, or the search results while a query is entered
+    @OptIn(FlowPreview::class, ExperimentalCoroutinesApi::class)
+    val products: Flow<PagingData<Product>> = searchQuery
+        .map { it.trim() }
+        .debounce { query -> if (query.isEmpty()) 0L else Constants.SEARCH_DEBOUNCE_MS }
+        .distinctUntilChanged()
+        .flatMapLatest { query ->
+            if (query.isEmpty()) catalog else flow { emit(search(query)) }
+        }
+
+    fun setSearchQuery(query: String) {
+        searchQuery.value = query
+    }
+
+    private suspend fun search(query: String): PagingData<Product> {
+        return when (val result = repository.searchProducts(query)) {
+            is Resource.Success -> PagingData.from(result.data ?: emptyList())
+            is Resource.Error -> {
+                _searchError.value = result.message
+                PagingData.empty()
+            }
+            else -> PagingData.empty()
+        }
+    }
+
+    fun loadProduct(productId: String) {
+        _product.value = Resource.Loading()
+        viewModelScope.launch {
+            _product.value = repository.getProduct(productId)
+        }
+    }
+}
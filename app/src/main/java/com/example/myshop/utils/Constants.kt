@@ -27,9 +27,6 @@ object Constants {
     const val EXTRA_ORDER_ID = "extra_order_id"
     const val EXTRA_NOTIFICATION_TYPE = "extra_notification_type"
     
-    // Broadcast Actions
-    const val ACTION_ORDER_UPDATED = "com.example.myshop.ORDER_UPDATED"
-
     // User Roles
     const val USER_ROLE_CUSTOMER = "CUSTOMER"
     const val USER_ROLE_ADMIN = "ADMIN"
@@ -47,9 +44,40 @@ object Constants {
 
     // Pagination
     const val PAGE_SIZE = 20
+    const val ORDER_WINDOW_SIZE = 100 // Orders kept in memory while scrolling order lists
+
+    // Product Sync
+    const val SYNC_BATCH_SIZE = 500
+    const val FULL_SYNC_INTERVAL = 24 * 60 * 60 * 1000L // Full resync prunes deleted products
+
+    // Product Cache
+    const val PRODUCT_CACHE_SIZE = 200
+    const val PRODUCT_CACHE_TTL = 5 * 60 * 1000L
+
+    // FCM Token Cache
+    const val FCM_TOKEN_CACHE_SIZE = 500
+    const val FCM_TOKEN_CACHE_TTL = 10 * 60 * 1000L // Tokens rotate on reinstall and sign-in elsewhere
+
+    // Product Search
+    const val SEARCH_RESULT_LIMIT = 50
+    const val SEARCH_DEBOUNCE_MS = 300L
+
+    // Image Uploads
+    const val IMAGE_UPLOAD_QUALITY = 80 // WebP quality of uploaded variants
+    const val MIN_IMAGE_UPLOAD_QUALITY = 50 // Lowest quality tried before a variant is rejected as too large
+    const val MAX_IMAGE_SIZE = 1024 * 1024L // Largest encoded variant accepted for upload
+    const val MAX_PARALLEL_UPLOADS = 3
+
+    // Catalog Import
+    const val IMPORT_BATCH_SIZE = 500 // Products per WriteBatch, Firestore's limit
+    const val MAX_PARALLEL_IMPORT_BATCHES = 4
+
+    // Cart Sync
+    const val CART_FLUSH_DEBOUNCE_MS = 1500L
 
     // Other Constants
-    const val DEFAULT_SHIPPING_COST = 5.99
-    const val MIN_ORDER_AMOUNT = 10.0
+    // Money amounts are in minor units of Money.DEFAULT_CURRENCY
+    const val DEFAULT_SHIPPING_COST_CENTS = 599L
+    const val MIN_ORDER_AMOUNT_CENTS = 1000L
     const val MAX_CART_QUANTITY = 99
 }
@@ -0,0 +1,120 @@
+package com.example.myshop.utils;
+
+import com.example.myshop.models.Product;
+import com.example.myshop.models.User;
+import com.google.firebase.firestore.FieldValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Field-level diffs of a model before and after an edit, ready for DocumentReference.update().
+// Only fields that changed are written, so listeners see a small change, and concurrent
+// editors of other fields don't overwrite each other. Stock moves as an increment, so
+// an edit never undoes orders placed while it was open.
+public final class DocumentPatches {
+
+    private DocumentPatches() {}
+
+    // Empty when nothing changed
+    public static Map<String, Object> forProduct(Product before, Product after) {
+        Map<String, Object> updates = new HashMap<>();
+        putIfChanged(updates, "name", before.getName(), after.getName());
+        putIfChanged(updates, "description", before.getDescription(), after.getDescription());
+        putIfChanged(updates, "imageUrl", before.getImageUrl(), after.getImageUrl());
+        putIfChanged(updates, "thumbnailUrl", before.getThumbnailUrl(), after.getThumbnailUrl());
+        putIfChanged(updates, "detailImageUrl", before.getDetailImageUrl(), after.getDetailImageUrl());
+        putIfChanged(updates, "category", before.getCategory(), after.getCategory());
+
+        if (!before.getPrice().equals(after.getPrice())) {
+            updates.put("priceCents", after.getPriceCents());
+            updates.put("currency", after.getCurrency());
+            // A decimal price left from before priceCents would otherwise be read back over it
+            updates.put("price", FieldValue.delete());
+        }
+
+        int stockDelta = after.getStockQuantity() - before.getStockQuantity();
+        if (stockDelta != 0) {
+            updates.put("stockQuantity", FieldValue.increment(stockDelta));
+        }
+
+        if (updates.containsKey("name") || updates.containsKey("category")) {
+            updates.put("searchKeywords", SearchTokenizer.keywordsFor(after.getName(), after.getCategory()));
+        }
+        if (!updates.isEmpty()) {
+            updates.put("updatedAt", FieldValue.serverTimestamp());
+        }
+        return updates;
+    }
+
+    // The catalog columns of an imported row, for a merge into the product document. Image
+    // variants are never touched, the image only when the row has one, and stock only when
+    // the row gave it, so re-importing a price list doesn't undo uploads or orders.
+    public static Map<String, Object> forImport(Product product, boolean includeStock) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("id", product.getId());
+        fields.put("name", product.getName());
+        fields.put("description", product.getDescription());
+        fields.put("priceCents", product.getPriceCents());
+        fields.put("currency", product.getCurrency());
+        fields.put("price", FieldValue.delete());
+        fields.put("category", product.getCategory());
+        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
+            fields.put("imageUrl", product.getImageUrl());
+        }
+        if (includeStock) {
+            fields.put("stockQuantity", product.getStockQuantity());
+        }
+        fields.put("searchKeywords", SearchTokenizer.keywordsFor(product.getName(), product.getCategory()));
+        fields.put("updatedAt", FieldValue.serverTimestamp());
+        return fields;
+    }
+
+    // Favourites are left out; they go through favoritesAdded/favoritesRemoved as array ops
+    public static Map<String, Object> forUser(User before, User after) {
+        Map<String, Object> updates = new HashMap<>();
+        putIfChanged(updates, "email", before.getEmail(), after.getEmail());
+        putIfChanged(updates, "fullName", before.getFullName(), after.getFullName());
+        putIfChanged(updates, "phoneNumber", before.getPhoneNumber(), after.getPhoneNumber());
+        putIfChanged(updates, "userType", before.getUserType(), after.getUserType());
+        putIfChanged(updates, "profileImageUrl", before.getProfileImageUrl(), after.getProfileImageUrl());
+        putIfChanged(updates, "profileThumbnailUrl", before.getProfileThumbnailUrl(), after.getProfileThumbnailUrl());
+        // Addresses have no stable id to merge on, so a changed list is written whole
+        putIfChanged(updates, "addresses", before.getAddresses(), after.getAddresses());
+        return updates;
+    }
+
+    public static List<String> favoritesAdded(User before, User after) {
+        return missingFrom(before.getFavoriteProducts(), after.getFavoriteProducts());
+    }
+
+    public static List<String> favoritesRemoved(User before, User after) {
+        return missingFrom(after.getFavoriteProducts(), before.getFavoriteProducts());
+    }
+
+    // Entries of candidates that aren't in existing
+    private static List<String> missingFrom(Collection<String> existing, Collection<String> candidates) {
+        List<String> missing = new ArrayList<>();
+        if (candidates == null) {
+            return missing;
+        }
+        Set<String> existingSet = existing != null ? new HashSet<>(existing) : new HashSet<>();
+        for (String candidate : candidates) {
+            if (!existingSet.contains(candidate)) {
+                missing.add(candidate);
+            }
+        }
+        return missing;
+    }
+
+    private static void putIfChanged(Map<String, Object> updates, String field, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            updates.put(field, after);
+        }
+    }
+}
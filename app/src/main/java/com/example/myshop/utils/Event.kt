@@ -0,0 +1,16 @@
+package com.example.myshop.utils
+
+// Wraps a LiveData value that should be handled once, such as an error toast; a new
+// observer after a view is recreated gets null instead of the old value
+class Event<out T>(private val content: T) {
+
+    private var handled = false
+
+    fun getContentIfNotHandled(): T? {
+        if (handled) return null
+        handled = true
+        return content
+    }
+
+    fun peekContent(): T = content
+}
@@ -22,8 +22,6 @@ import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions
 import com.bumptech.glide.request.target.CustomTarget
 import com.bumptech.glide.request.transition.Transition
 import com.google.android.material.snackbar.Snackbar
-import java.text.NumberFormat
-import java.util.Locale
 
 // Context Extensions
 fun Context.toast(message: String, duration: Int = Toast.LENGTH_SHORT) {
@@ -136,17 +134,14 @@ fun String.isValidPhone(): Boolean = Utils.isValidPhone(this)
 
 fun String.formatAsPrice(): String {
     return try {
-        val number = this.toDouble()
-        NumberFormat.getCurrencyInstance(Locale.getDefault()).format(number)
+        Formatters.formatPrice(this.toDouble())
     } catch (e: NumberFormatException) {
         this
     }
 }
 
 // Double Extensions
-fun Double.formatAsPrice(): String {
-    return NumberFormat.getCurrencyInstance(Locale.getDefault()).format(this)
-}
+fun Double.formatAsPrice(): String = Formatters.formatPrice(this)
 
 // LiveData Extensions
 fun <T> LiveData<T>.observeOnce(lifecycleOwner: LifecycleOwner, observer: (T) -> Unit) {
@@ -0,0 +1,61 @@
+package com.example.myshop.utils;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import java.util.Map;
+
+// Bounded in-memory cache of users' FCM tokens. A user without a token is cached too, as
+// null. Entries expire after ttlMillis, so a token that rotated is picked up again.
+public class FcmTokenCache {
+    private final LruCache<String, Entry> entries;
+    private final long ttlMillis;
+
+    private static class Entry {
+        final String token;
+        final long cachedAt;
+
+        Entry(String token, long cachedAt) {
+            this.token = token;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+    public FcmTokenCache(int maxSize, long ttlMillis) {
+        this.entries = new LruCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    // False when the user is missing or expired; get() is only meaningful after true
+    public boolean contains(String userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return false;
+        }
+        if (SystemClock.elapsedRealtime() - entry.cachedAt > ttlMillis) {
+            entries.remove(userId);
+            return false;
+        }
+        return true;
+    }
+
+    public String get(String userId) {
+        Entry entry = entries.get(userId);
+        return entry != null ? entry.token : null;
+    }
+
+    public void put(String userId, String token) {
+        entries.put(userId, new Entry(token, SystemClock.elapsedRealtime()));
+    }
+
+    public void putAll(Map<String, String> tokens) {
+        long now = SystemClock.elapsedRealtime();
+        for (Map.Entry<String, String> token : tokens.entrySet()) {
+            entries.put(token.getKey(), new Entry(token.getValue(), now));
+        }
+    }
+
+    public void invalidate(String userId) {
+        entries.remove(userId);
+    }
+}
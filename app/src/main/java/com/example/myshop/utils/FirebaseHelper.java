@@ -1,39 +1,91 @@
 package com.example.myshop.utils;
 
+import com.example.myshop.data.pricing.CartPricingEngine;
+import com.example.myshop.data.pricing.CartQuote;
+import com.example.myshop.data.pricing.PricingRules;
+import com.example.myshop.images.ImageVariant;
+import com.example.myshop.models.CartItem;
+import com.example.myshop.models.Money;
 import com.example.myshop.models.User;
 import com.example.myshop.models.Product;
 import com.example.myshop.models.Order;
+import com.example.myshop.models.OrderItem;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.AggregateField;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
 
 public class FirebaseHelper {
     private static FirebaseHelper instance;
     private final FirebaseAuth auth;
     private final FirebaseFirestore db;
-    private final FirebaseStorage storage;
+    // Only image uploads need Storage, so it is created on first use
+    private FirebaseStorage storage;
+
+    // Products seen recently, and lookups still waiting on Firestore
+    private final ProductCache productCache =
+            new ProductCache(Constants.PRODUCT_CACHE_SIZE, Constants.PRODUCT_CACHE_TTL);
+    private final Map<String, Task<Product>> pendingProductLookups = new HashMap<>();
+
+    // FCM tokens by user id, filled by token reads and writes; null means the user has none
+    private final FcmTokenCache fcmTokenCache =
+            new FcmTokenCache(Constants.FCM_TOKEN_CACHE_SIZE, Constants.FCM_TOKEN_CACHE_TTL);
 
     // Collection names
     private static final String USERS_COLLECTION = "users";
     private static final String PRODUCTS_COLLECTION = "products";
     private static final String ORDERS_COLLECTION = "orders";
     private static final String CART_COLLECTION = "carts";
+    private static final String ORDER_STATS_COLLECTION = "order_stats";
+
+    // Firestore rejects batches with more writes than this
+    private static final int MAX_BATCH_WRITES = 500;
+    // Each day's order counters are spread over this many documents, so concurrent
+    // checkouts rarely write the same one
+    private static final int ORDER_STATS_SHARDS = 10;
+    private final Random statsShardPicker = new Random();
+
+    // Largest value list Firestore accepts in a whereIn filter
+    private static final int MAX_WHERE_IN = 10;
+    // Orders per bulk status batch: a status update and a notification each, plus at most
+    // one counter write per distinct order day
+    private static final int BULK_STATUS_CHUNK = MAX_BATCH_WRITES / 3;
 
     private FirebaseHelper() {
         auth = FirebaseAuth.getInstance();
         db = FirebaseFirestore.getInstance();
-        storage = FirebaseStorage.getInstance();
     }
 
     public static synchronized FirebaseHelper getInstance() {
@@ -74,43 +126,294 @@ public class FirebaseHelper {
 
     // Product Methods
     public Task<Void> addProduct(Product product) {
+        invalidateProduct(product.getId());
+        // Cleared so Firestore stamps the write with the server time
+        product.setUpdatedAt(null);
+        product.setSearchKeywords(SearchTokenizer.keywordsFor(product.getName(), product.getCategory()));
         return db.collection(PRODUCTS_COLLECTION)
                 .document(product.getId())
                 .set(product);
     }
 
+    // Writes a chunk of an import in one batch. Document ids are the product ids, so a
+    // chunk replayed after an interrupted import overwrites instead of duplicating. Rows are
+    // merged into existing products rather than replacing them: see DocumentPatches.forImport
+    // for the fields an import owns. stockIds are the products whose row set a stock level.
+    public Task<Void> importProducts(List<Product> products, Set<String> stockIds) {
+        if (products.size() > MAX_BATCH_WRITES) {
+            return Tasks.forException(new IllegalArgumentException("Too many products in one batch"));
+        }
+        WriteBatch batch = db.batch();
+        for (Product product : products) {
+            invalidateProduct(product.getId());
+            batch.set(db.collection(PRODUCTS_COLLECTION).document(product.getId()),
+                    DocumentPatches.forImport(product, stockIds.contains(product.getId())),
+                    SetOptions.merge());
+        }
+        return batch.commit();
+    }
+
     public Task<QuerySnapshot> getAllProducts() {
         return db.collection(PRODUCTS_COLLECTION).get();
     }
 
+    // Keyset pagination over the catalog. Ordering by document ID keeps cursors stable
+    // and matches the order the unpaginated query returned.
+    public Task<QuerySnapshot> getProductsPage(DocumentSnapshot lastVisible, long pageSize) {
+        Query query = db.collection(PRODUCTS_COLLECTION)
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize);
+        if (lastVisible != null) {
+            query = query.startAfter(lastVisible);
+        }
+        return query.get();
+    }
+
+    public Task<QuerySnapshot> getProductsPage(DocumentSnapshot lastVisible) {
+        return getProductsPage(lastVisible, Constants.PAGE_SIZE);
+    }
+
+    // Products written after the given time, oldest first, for incremental sync
+    public Task<QuerySnapshot> getProductsUpdatedSince(Date since, DocumentSnapshot lastVisible, long pageSize) {
+        Query query = db.collection(PRODUCTS_COLLECTION)
+                .whereGreaterThan("updatedAt", since)
+                .orderBy("updatedAt")
+                .limit(pageSize);
+        if (lastVisible != null) {
+            query = query.startAfter(lastVisible);
+        }
+        return query.get();
+    }
+
     public Task<QuerySnapshot> getProductsByCategory(String category) {
         return db.collection(PRODUCTS_COLLECTION)
                 .whereEqualTo("category", category)
                 .get();
     }
 
+    // Served from memory when possible; concurrent lookups for one id share a single read
     public Task<Product> getProductById(String productId) {
-        return db.collection(PRODUCTS_COLLECTION)
-                .document(productId)
-                .get()
-                .continueWith(task -> {
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        return task.getResult().toObject(Product.class);
+        Product cached = productCache.get(productId);
+        if (cached != null) {
+            return Tasks.forResult(cached);
+        }
+
+        synchronized (pendingProductLookups) {
+            Task<Product> pending = pendingProductLookups.get(productId);
+            if (pending != null) {
+                return pending;
+            }
+
+            long generation = productCache.generation();
+            Task<Product> lookup = db.collection(PRODUCTS_COLLECTION)
+                    .document(productId)
+                    .get()
+                    .continueWith(task -> {
+                        if (task.isSuccessful() && task.getResult() != null) {
+                            Product product = task.getResult().toObject(Product.class);
+                            if (product != null) {
+                                if (product.getId() == null) {
+                                    product.setId(productId);
+                                }
+                                productCache.put(product, generation);
+                            }
+                            return product;
+                        }
+                        return null;
+                    });
+            pendingProductLookups.put(productId, lookup);
+            lookup.addOnCompleteListener(task -> {
+                synchronized (pendingProductLookups) {
+                    // An invalidate may already have replaced it with a newer lookup
+                    if (pendingProductLookups.get(productId) == lookup) {
+                        pendingProductLookups.remove(productId);
                     }
-                    return null;
-                });
+                }
+            });
+            return lookup;
+        }
+    }
+
+    // Fetches products by id with one whereIn query per MAX_WHERE_IN ids, all in flight at once.
+    // Ids that no longer exist are simply missing from the result.
+    public Task<List<Product>> getProductsByIds(List<String> productIds) {
+        long generation = productCache.generation();
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+        for (int start = 0; start < productIds.size(); start += MAX_WHERE_IN) {
+            List<String> chunk = productIds.subList(start, Math.min(start + MAX_WHERE_IN, productIds.size()));
+            queries.add(db.collection(PRODUCTS_COLLECTION)
+                    .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                    .get());
+        }
+
+        return Tasks.<QuerySnapshot>whenAllSuccess(queries).continueWith(task -> {
+            List<Product> products = new ArrayList<>();
+            for (QuerySnapshot snapshot : task.getResult()) {
+                for (DocumentSnapshot document : snapshot.getDocuments()) {
+                    Product product = document.toObject(Product.class);
+                    if (product != null) {
+                        if (product.getId() == null) {
+                            product.setId(document.getId());
+                        }
+                        products.add(product);
+                    }
+                }
+            }
+            productCache.putAll(products, generation);
+            return products;
+        });
+    }
+
+    // Memory-only lookup, for callers that fall back to their own store
+    public Product getCachedProduct(String productId) {
+        return productCache.get(productId);
+    }
+
+    public void cacheProduct(Product product) {
+        productCache.put(product);
+    }
+
+    // Seeds the cache from list queries so the detail screen opens without a read
+    public void cacheProducts(List<Product> products) {
+        productCache.putAll(products);
+    }
+
+    // For reads made outside this class: take the generation before the read and pass it
+    // back with the result, so a product changed meanwhile isn't cached
+    public long getProductCacheGeneration() {
+        return productCache.generation();
+    }
+
+    public void cacheProducts(List<Product> products, long generation) {
+        productCache.putAll(products, generation);
+    }
+
+    // Also forgets a lookup already in flight, so later callers don't get its old result
+    private void invalidateProduct(String productId) {
+        productCache.invalidate(productId);
+        synchronized (pendingProductLookups) {
+            pendingProductLookups.remove(productId);
+        }
     }
 
     // Order Methods
     public Task<DocumentReference> createOrder(Order order) {
-        return db.collection(ORDERS_COLLECTION).add(order);
+        DocumentReference orderRef = db.collection(ORDERS_COLLECTION).document();
+        order.setOrderId(orderRef.getId());
+
+        // The order and its counter update land together
+        order.setCountedInStats(true);
+        WriteBatch batch = db.batch();
+        batch.set(orderRef, order);
+        recordOrderStats(batch, order.getOrderDate(), null, order.getStatus(), order.getTotalAmountCents());
+        return batch.commit().continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            return orderRef;
+        });
     }
 
-    public Task<QuerySnapshot> getUserOrders(String userId) {
-        return db.collection(ORDERS_COLLECTION)
+    public Task<DocumentReference> placeOrder(String userId, Order order) {
+        return placeOrder(userId, order, PricingRules.DEFAULT);
+    }
+
+    // Checks and reserves stock, prices the order from the product documents, writes it
+    // and clears the ordered cart items, all in one transaction. Firestore retries the
+    // whole function when another checkout touches the same products.
+    public Task<DocumentReference> placeOrder(String userId, Order order, PricingRules pricingRules) {
+        DocumentReference orderRef = order.getOrderId() != null
+                ? db.collection(ORDERS_COLLECTION).document(order.getOrderId())
+                : db.collection(ORDERS_COLLECTION).document();
+        order.setOrderId(orderRef.getId());
+        order.setUserId(userId);
+
+        List<OrderItem> items = order.getItems() != null ? order.getItems() : new ArrayList<>();
+        if (items.isEmpty()) {
+            return Tasks.forException(new IllegalArgumentException("Order has no items"));
+        }
+        // One stock update and one cart delete per item, plus the order, cart and counter documents
+        if (items.size() * 2 + 3 > MAX_BATCH_WRITES) {
+            return Tasks.forException(new IllegalArgumentException("Too many items in one order"));
+        }
+
+        return db.runTransaction(transaction -> {
+            // All reads must happen before the first write
+            List<DocumentSnapshot> productSnapshots = new ArrayList<>();
+            for (OrderItem item : items) {
+                productSnapshots.add(transaction.get(
+                        db.collection(PRODUCTS_COLLECTION).document(item.getProductId())));
+            }
+
+            List<CartItem> pricedLines = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem item = items.get(i);
+                DocumentSnapshot productSnapshot = productSnapshots.get(i);
+                if (!productSnapshot.exists()) {
+                    throw new FirebaseFirestoreException(
+                            "A product in your cart is no longer available",
+                            FirebaseFirestoreException.Code.NOT_FOUND);
+                }
+
+                Long stock = productSnapshot.getLong("stockQuantity");
+                if (stock == null || stock < item.getQuantity()) {
+                    String name = productSnapshot.getString("name");
+                    throw new FirebaseFirestoreException(
+                            "Not enough stock for " + (name != null ? name : "a product in your cart"),
+                            FirebaseFirestoreException.Code.FAILED_PRECONDITION);
+                }
+
+                // Price and category from the product document, not the copy held in the cart
+                Product product = productSnapshot.toObject(Product.class);
+                if (product != null) {
+                    item.setUnitPrice(product.getPrice());
+                }
+                CartItem line = new CartItem(item.getProductId(), null, item.getUnitPrice(), null, item.getQuantity());
+                line.setCategory(product != null ? product.getCategory() : null);
+                pricedLines.add(line);
+            }
+
+            CartQuote quote = CartPricingEngine.price(pricedLines, pricingRules);
+            if (!quote.getMeetsMinimum()) {
+                throw new FirebaseFirestoreException(
+                        "Orders must come to at least " + Formatters.INSTANCE.formatPrice(quote.getMinimumOrder()),
+                        FirebaseFirestoreException.Code.FAILED_PRECONDITION);
+            }
+
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem item = items.get(i);
+                long stock = productSnapshots.get(i).getLong("stockQuantity");
+                transaction.update(productSnapshots.get(i).getReference(),
+                        "stockQuantity", stock - item.getQuantity(),
+                        "updatedAt", FieldValue.serverTimestamp());
+                transaction.delete(getCartItemsRef(userId).document(item.getProductId()));
+            }
+            transaction.delete(db.collection(CART_COLLECTION).document(userId));
+
+            order.setTotal(quote.getTotal());
+            order.setShippingCents(quote.getShipping().getMinorUnits());
+            order.setDiscountCents(quote.getDiscount().getMinorUnits());
+            order.setTaxCents(quote.getTax().getMinorUnits());
+            order.setCountedInStats(true);
+            transaction.set(orderRef, order);
+            recordOrderStats(transaction, order.getOrderDate(), null, order.getStatus(), order.getTotalAmountCents());
+            return orderRef;
+        }).addOnSuccessListener(ref -> {
+            // Stock has changed, so cached copies of these products are stale. Done once the
+            // transaction commits; a retried or failed attempt leaves the cache alone.
+            for (OrderItem item : items) {
+                invalidateProduct(item.getProductId());
+            }
+        });
+    }
+
+    // Order lists are read a page at a time, newest first. Pass the last document of the
+    // previous page to continue; the composite indexes are in firestore.indexes.json.
+    public Task<QuerySnapshot> getUserOrders(String userId, DocumentSnapshot lastVisible, long pageSize) {
+        Query query = db.collection(ORDERS_COLLECTION)
                 .whereEqualTo("userId", userId)
-                .orderBy("orderDate", Query.Direction.DESCENDING)
-                .get();
+                .orderBy("orderDate", Query.Direction.DESCENDING);
+        return getPage(query, lastVisible, pageSize);
     }
 
     public Task<DocumentSnapshot> getOrderById(String orderId) {
@@ -119,68 +422,179 @@ public class FirebaseHelper {
                 .get();
     }
 
-    public Task<Void> updateOrderStatus(String orderId, String newStatus) {
+    // Live updates for one order; the first event carries the whole document, later ones
+    // only transfer the fields that changed
+    public ListenerRegistration addOrderListener(String orderId, EventListener<DocumentSnapshot> listener) {
         return db.collection(ORDERS_COLLECTION)
                 .document(orderId)
-                .update("status", newStatus);
+                .addSnapshotListener(listener);
     }
 
-    public Task<QuerySnapshot> getOrdersByStatus(String status) {
-        return db.collection(ORDERS_COLLECTION)
+    // Reads the order so the counters can move it from its old status to the new one
+    public Task<Void> updateOrderStatus(String orderId, String newStatus) {
+        DocumentReference orderRef = db.collection(ORDERS_COLLECTION).document(orderId);
+
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot orderSnapshot = transaction.get(orderRef);
+            if (!orderSnapshot.exists()) {
+                throw new FirebaseFirestoreException("Order not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+
+            String oldStatus = orderSnapshot.getString("status");
+            if (newStatus.equals(oldStatus)) {
+                return null;
+            }
+            transaction.update(orderRef, "status", newStatus);
+            if (isCountedInStats(orderSnapshot)) {
+                recordOrderStats(transaction, orderSnapshot.getDate("orderDate"), oldStatus, newStatus, 0);
+            }
+            return null;
+        });
+    }
+
+    public Task<QuerySnapshot> getOrdersByStatus(String status, DocumentSnapshot lastVisible, long pageSize) {
+        Query query = db.collection(ORDERS_COLLECTION)
                 .whereEqualTo("status", status)
-                .orderBy("orderDate", Query.Direction.DESCENDING)
-                .get();
+                .orderBy("orderDate", Query.Direction.DESCENDING);
+        return getPage(query, lastVisible, pageSize);
+    }
+
+    // startAfter with a snapshot also orders by document id, so orders placed in the same
+    // millisecond are neither skipped nor repeated across pages
+    private Task<QuerySnapshot> getPage(Query query, DocumentSnapshot lastVisible, long pageSize) {
+        query = query.limit(pageSize);
+        if (lastVisible != null) {
+            query = query.startAfter(lastVisible);
+        }
+        return query.get();
     }
 
     // Storage Methods
+    private synchronized FirebaseStorage getStorage() {
+        if (storage == null) {
+            storage = FirebaseStorage.getInstance();
+        }
+        return storage;
+    }
+
     public StorageReference getProductImageRef(String productId) {
-        return storage.getReference()
+        return getStorage().getReference()
                 .child("products")
                 .child(productId + ".jpg");
     }
 
+    public StorageReference getProductImageRef(String productId, ImageVariant variant) {
+        return getStorage().getReference()
+                .child("products")
+                .child(variant.fileName(productId));
+    }
+
     public StorageReference getUserProfileImageRef(String userId) {
-        return storage.getReference()
+        return getStorage().getReference()
                 .child("profile_images")
                 .child(userId + ".jpg");
     }
 
+    public StorageReference getUserProfileImageRef(String userId, ImageVariant variant) {
+        return getStorage().getReference()
+                .child("profile_images")
+                .child(variant.fileName(userId));
+    }
+
+    // Points the product at freshly uploaded variants. FULL replaces imageUrl, so readers
+    // that only know that field still get the re-encoded image.
+    public Task<Void> updateProductImages(String productId, Map<ImageVariant, String> urls) {
+        invalidateProduct(productId);
+        Map<String, Object> updates = new HashMap<>();
+        putIfPresent(updates, "imageUrl", urls.get(ImageVariant.FULL));
+        putIfPresent(updates, "detailImageUrl", urls.get(ImageVariant.DETAIL));
+        putIfPresent(updates, "thumbnailUrl", urls.get(ImageVariant.THUMBNAIL));
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        return db.collection(PRODUCTS_COLLECTION)
+                .document(productId)
+                .update(updates);
+    }
+
+    public Task<Void> updateUserProfileImages(String userId, Map<ImageVariant, String> urls) {
+        Map<String, Object> updates = new HashMap<>();
+        putIfPresent(updates, "profileImageUrl", urls.get(ImageVariant.DETAIL));
+        putIfPresent(updates, "profileThumbnailUrl", urls.get(ImageVariant.THUMBNAIL));
+        return db.collection(USERS_COLLECTION)
+                .document(userId)
+                .update(updates);
+    }
+
+    private static void putIfPresent(Map<String, Object> updates, String field, String value) {
+        if (value != null) {
+            updates.put(field, value);
+        }
+    }
+
     // Admin Methods
-    public Task<QuerySnapshot> getAllOrders() {
-        return db.collection(ORDERS_COLLECTION)
-                .orderBy("orderDate", Query.Direction.DESCENDING)
-                .get();
+    public Task<QuerySnapshot> getAllOrders(DocumentSnapshot lastVisible, long pageSize) {
+        Query query = db.collection(ORDERS_COLLECTION)
+                .orderBy("orderDate", Query.Direction.DESCENDING);
+        return getPage(query, lastVisible, pageSize);
     }
 
     public Task<Void> deleteProduct(String productId) {
+        invalidateProduct(productId);
         return db.collection(PRODUCTS_COLLECTION)
                 .document(productId)
                 .delete();
     }
 
     public Task<Void> updateProduct(Product product) {
+        invalidateProduct(product.getId());
+        // Cleared so Firestore stamps the write with the server time
+        product.setUpdatedAt(null);
+        product.setSearchKeywords(SearchTokenizer.keywordsFor(product.getName(), product.getCategory()));
         return db.collection(PRODUCTS_COLLECTION)
                 .document(product.getId())
                 .set(product);
     }
 
+    // Writes only what changed between two copies of a product; see DocumentPatches
+    public Task<Void> patchProduct(Product before, Product after) {
+        Map<String, Object> updates = DocumentPatches.forProduct(before, after);
+        if (updates.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        invalidateProduct(after.getId());
+        return db.collection(PRODUCTS_COLLECTION)
+                .document(after.getId())
+                .update(updates);
+    }
+
+    // Relative to whatever the server holds, so it composes with concurrent checkouts
+    public Task<Void> adjustStock(String productId, long delta) {
+        invalidateProduct(productId);
+        return db.collection(PRODUCTS_COLLECTION)
+                .document(productId)
+                .update("stockQuantity", FieldValue.increment(delta),
+                        "updatedAt", FieldValue.serverTimestamp());
+    }
+
     // FCM Token Management
     public Task<Void> updateFCMToken(String userId, String token) {
+        synchronized (fcmTokenCache) {
+            fcmTokenCache.put(userId, token);
+        }
         return db.collection(USERS_COLLECTION)
                 .document(userId)
                 .update("fcmToken", token);
     }
 
+    // Served from the token cache for FCM_TOKEN_CACHE_TTL after a read or write
     public Task<String> getFCMToken(String userId) {
-        return db.collection(USERS_COLLECTION)
-                .document(userId)
-                .get()
-                .continueWith(task -> {
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        return task.getResult().getString("fcmToken");
-                    }
-                    return null;
-                });
+        synchronized (fcmTokenCache) {
+            if (fcmTokenCache.contains(userId)) {
+                return Tasks.forResult(fcmTokenCache.get(userId));
+            }
+        }
+        return getFCMTokens(Collections.singletonList(userId))
+                .continueWith(task -> task.getResult().get(userId));
     }
 
     // Order Status Management
@@ -198,14 +612,20 @@ public class FirebaseHelper {
                 throw new Exception("User ID not found in order");
             }
 
-            // Update order status
-            transaction.update(orderRef, "status", newStatus);
-
-            // Get user's FCM token
+            // Get user's FCM token; every read has to happen before the first write
             DocumentSnapshot userSnapshot = transaction.get(
                 db.collection(USERS_COLLECTION).document(userId)
             );
 
+            // Update order status and the counters it moves between
+            String oldStatus = orderSnapshot.getString("status");
+            if (!newStatus.equals(oldStatus)) {
+                transaction.update(orderRef, "status", newStatus);
+                if (isCountedInStats(orderSnapshot)) {
+                    recordOrderStats(transaction, orderSnapshot.getDate("orderDate"), oldStatus, newStatus, 0);
+                }
+            }
+
             String fcmToken = userSnapshot.getString("fcmToken");
             if (fcmToken != null) {
                 // Send notification using Cloud Functions
@@ -228,13 +648,243 @@ public class FirebaseHelper {
         });
     }
 
-    // Get orders by date range
-    public Task<QuerySnapshot> getOrdersByDateRange(Date startDate, Date endDate) {
+    // Moves many orders to newStatus without reading them: the status, counter and
+    // notification writes go out in chunked WriteBatches that commit in parallel. The
+    // orders' current status is taken from the objects passed in, so they should come
+    // from a recent query. notificationMessage may contain %1$s for the order id.
+    public Task<Void> updateOrderStatuses(List<Order> orders, String newStatus,
+                                          String notificationTitle, String notificationMessage) {
+        List<Order> changed = new ArrayList<>();
+        Set<String> userIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            if (!newStatus.equals(order.getStatus())) {
+                changed.add(order);
+                if (order.getUserId() != null) {
+                    userIds.add(order.getUserId());
+                }
+            }
+        }
+        if (changed.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+
+        return getFCMTokens(userIds).continueWithTask(tokenTask -> {
+            Map<String, String> tokens = tokenTask.getResult();
+            List<Task<Void>> commits = new ArrayList<>();
+            for (int start = 0; start < changed.size(); start += BULK_STATUS_CHUNK) {
+                List<Order> chunk = changed.subList(start, Math.min(start + BULK_STATUS_CHUNK, changed.size()));
+                commits.add(buildStatusBatch(chunk, newStatus, tokens,
+                        notificationTitle, notificationMessage).commit());
+            }
+            return Tasks.whenAll(commits);
+        });
+    }
+
+    private WriteBatch buildStatusBatch(List<Order> orders, String newStatus, Map<String, String> tokens,
+                                        String notificationTitle, String notificationMessage) {
+        WriteBatch batch = db.batch();
+        // Counter moves are summed per day so each day takes one write per batch
+        Map<String, Map<String, Long>> statusMovesByDay = new HashMap<>();
+
+        for (Order order : orders) {
+            batch.update(db.collection(ORDERS_COLLECTION).document(order.getOrderId()), "status", newStatus);
+
+            if (order.isCountedInStats()) {
+                String day = getStatsDay(order.getOrderDate());
+                Map<String, Long> moves = statusMovesByDay.get(day);
+                if (moves == null) {
+                    moves = new HashMap<>();
+                    statusMovesByDay.put(day, moves);
+                }
+                if (order.getStatus() != null) {
+                    Long count = moves.get(order.getStatus());
+                    moves.put(order.getStatus(), (count != null ? count : 0L) - 1);
+                }
+                Long count = moves.get(newStatus);
+                moves.put(newStatus, (count != null ? count : 0L) + 1);
+            }
+
+            String fcmToken = tokens.get(order.getUserId());
+            if (fcmToken != null) {
+                Map<String, Object> notificationData = new HashMap<>();
+                notificationData.put("type", "order_status");
+                notificationData.put("orderId", order.getOrderId());
+                notificationData.put("status", newStatus);
+                notificationData.put("title", notificationTitle);
+                notificationData.put("message", notificationMessage != null
+                        ? String.format(notificationMessage, order.getOrderId()) : null);
+                notificationData.put("token", fcmToken);
+                batch.set(db.collection("notifications").document(), notificationData);
+            }
+        }
+
+        for (Map.Entry<String, Map<String, Long>> entry : statusMovesByDay.entrySet()) {
+            Map<String, Object> statusCounts = new HashMap<>();
+            for (Map.Entry<String, Long> move : entry.getValue().entrySet()) {
+                statusCounts.put(move.getKey(), FieldValue.increment(move.getValue()));
+            }
+            Map<String, Object> update = new HashMap<>();
+            update.put("day", entry.getKey());
+            update.put("statusCounts", statusCounts);
+            batch.set(getStatsShardRef(entry.getKey()), update, SetOptions.merge());
+        }
+        return batch;
+    }
+
+    // Tokens for the given users: cached ones immediately, the rest with one whereIn
+    // query per MAX_WHERE_IN users, all in flight at once
+    public Task<Map<String, String>> getFCMTokens(Collection<String> userIds) {
+        Map<String, String> tokens = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (fcmTokenCache) {
+            for (String userId : userIds) {
+                if (fcmTokenCache.contains(userId)) {
+                    tokens.put(userId, fcmTokenCache.get(userId));
+                } else {
+                    missing.add(userId);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return Tasks.forResult(tokens);
+        }
+
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+        for (int start = 0; start < missing.size(); start += MAX_WHERE_IN) {
+            List<String> chunk = missing.subList(start, Math.min(start + MAX_WHERE_IN, missing.size()));
+            queries.add(db.collection(USERS_COLLECTION)
+                    .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                    .get());
+        }
+
+        return Tasks.<QuerySnapshot>whenAllSuccess(queries).continueWith(task -> {
+            Map<String, String> fetched = new HashMap<>();
+            for (String userId : missing) {
+                fetched.put(userId, null);
+            }
+            for (QuerySnapshot snapshot : task.getResult()) {
+                for (DocumentSnapshot document : snapshot.getDocuments()) {
+                    fetched.put(document.getId(), document.getString("fcmToken"));
+                }
+            }
+            synchronized (fcmTokenCache) {
+                fcmTokenCache.putAll(fetched);
+            }
+            tokens.putAll(fetched);
+            return tokens;
+        });
+    }
+
+    // Order Statistics
+    // Counter documents are keyed {day}_{shard}; a day's totals are the sum of its shards.
+    // Placing an order adds to orderCount, revenue and its status; a status change moves
+    // one count between statuses. The counters start empty and are not backfilled: only
+    // orders marked countedInStats are in them, so moving an older order leaves the
+    // counters alone instead of decrementing a status that never counted it.
+    private void recordOrderStats(Transaction transaction, Date orderDate, String oldStatus,
+                                  String newStatus, long revenueCents) {
+        String day = getStatsDay(orderDate);
+        transaction.set(getStatsShardRef(day),
+                buildStatsUpdate(day, oldStatus, newStatus, revenueCents), SetOptions.merge());
+    }
+
+    private void recordOrderStats(WriteBatch batch, Date orderDate, String oldStatus,
+                                  String newStatus, long revenueCents) {
+        String day = getStatsDay(orderDate);
+        batch.set(getStatsShardRef(day),
+                buildStatsUpdate(day, oldStatus, newStatus, revenueCents), SetOptions.merge());
+    }
+
+    private DocumentReference getStatsShardRef(String day) {
+        int shard = statsShardPicker.nextInt(ORDER_STATS_SHARDS);
+        return db.collection(ORDER_STATS_COLLECTION).document(day + "_" + shard);
+    }
+
+    private Map<String, Object> buildStatsUpdate(String day, String oldStatus, String newStatus, long revenueCents) {
+        Map<String, Object> statusCounts = new HashMap<>();
+        if (oldStatus != null) {
+            statusCounts.put(oldStatus, FieldValue.increment(-1));
+        }
+        if (newStatus != null) {
+            statusCounts.put(newStatus, FieldValue.increment(1));
+        }
+
+        Map<String, Object> update = new HashMap<>();
+        update.put("day", day);
+        update.put("statusCounts", statusCounts);
+        if (oldStatus == null) {
+            update.put("orderCount", FieldValue.increment(1));
+            // Integer increments stay exact; shards written before this also hold a decimal "revenue"
+            update.put("revenueCents", FieldValue.increment(revenueCents));
+        }
+        return update;
+    }
+
+    private static boolean isCountedInStats(DocumentSnapshot orderSnapshot) {
+        return Boolean.TRUE.equals(orderSnapshot.getBoolean("countedInStats"));
+    }
+
+    // Days are bucketed in UTC so every device files an order under the same day. Called
+    // for every counter write, so each thread keeps one formatter.
+    private static final ThreadLocal<SimpleDateFormat> STATS_DAY_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format;
+        }
+    };
+
+    public static String getStatsDay(Date date) {
+        return STATS_DAY_FORMAT.get().format(date != null ? date : new Date());
+    }
+
+    // Every shard of every day from fromDay to toDay inclusive, both formatted by getStatsDay
+    public Task<QuerySnapshot> getOrderStats(String fromDay, String toDay) {
+        return db.collection(ORDER_STATS_COLLECTION)
+                .whereGreaterThanOrEqualTo("day", fromDay)
+                .whereLessThanOrEqualTo("day", toDay)
+                .get();
+    }
+
+    // Server-side count, billed at one read per 1000 matching orders
+    public Task<AggregateQuerySnapshot> countOrdersByStatus(String status) {
         return db.collection(ORDERS_COLLECTION)
+                .whereEqualTo("status", status)
+                .count()
+                .get(AggregateSource.SERVER);
+    }
+
+    // Server-side revenue total in minor units for ad hoc ranges the daily counters do not
+    // cover. Orders hold either totalAmountCents or, if they predate it, only the decimal
+    // totalAmount, so each is summed on its own: an aggregate over both fields would skip
+    // every order missing one of them.
+    public Task<Long> sumOrderTotals(Date startDate, Date endDate) {
+        Query orders = db.collection(ORDERS_COLLECTION)
+                .whereGreaterThanOrEqualTo("orderDate", startDate)
+                .whereLessThanOrEqualTo("orderDate", endDate);
+        AggregateField centsSum = AggregateField.sum("totalAmountCents");
+        AggregateField legacySum = AggregateField.sum("totalAmount");
+        Task<AggregateQuerySnapshot> cents = orders.aggregate(centsSum).get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> legacy = orders.aggregate(legacySum).get(AggregateSource.SERVER);
+
+        return Tasks.whenAllSuccess(cents, legacy).continueWith(task -> {
+            Long centsTotal = cents.getResult().getLong(centsSum);
+            Double legacyTotal = legacy.getResult().getDouble(legacySum);
+            // Rounding the decimal sum once also drops the error the server picks up adding it
+            return (centsTotal != null ? centsTotal : 0L) + Money.toMinorUnits(
+                    legacyTotal != null ? legacyTotal : 0.0, Money.DEFAULT_CURRENCY);
+        });
+    }
+
+    // Get orders by date range
+    public Task<QuerySnapshot> getOrdersByDateRange(Date startDate, Date endDate,
+                                                    DocumentSnapshot lastVisible, long pageSize) {
+        Query query = db.collection(ORDERS_COLLECTION)
                 .whereGreaterThanOrEqualTo("orderDate", startDate)
                 .whereLessThanOrEqualTo("orderDate", endDate)
-                .orderBy("orderDate", Query.Direction.DESCENDING)
-                .get();
+                .orderBy("orderDate", Query.Direction.DESCENDING);
+        return getPage(query, lastVisible, pageSize);
     }
 
     // User Management Methods
@@ -244,11 +894,55 @@ public class FirebaseHelper {
                 .set(user);
     }
 
+    // Single-element array ops, so a toggle never rewrites or races the rest of the list
+    public Task<Void> addFavoriteProduct(String userId, String productId) {
+        return db.collection(USERS_COLLECTION)
+                .document(userId)
+                .update("favoriteProducts", FieldValue.arrayUnion(productId));
+    }
+
+    public Task<Void> removeFavoriteProduct(String userId, String productId) {
+        return db.collection(USERS_COLLECTION)
+                .document(userId)
+                .update("favoriteProducts", FieldValue.arrayRemove(productId));
+    }
+
+    // Writes only what changed between two copies of a profile. Fields outside the model,
+    // such as fcmToken, are left alone, which a set() of the whole user would wipe.
+    // Firestore allows one transform per field per write, so removed favourites go in a
+    // second update in the same batch.
+    public Task<Void> patchUserProfile(User before, User after) {
+        DocumentReference userRef = db.collection(USERS_COLLECTION).document(after.getUserId());
+        Map<String, Object> updates = DocumentPatches.forUser(before, after);
+        List<String> added = DocumentPatches.favoritesAdded(before, after);
+        List<String> removed = DocumentPatches.favoritesRemoved(before, after);
+        if (!added.isEmpty()) {
+            updates.put("favoriteProducts", FieldValue.arrayUnion(added.toArray()));
+        }
+        if (updates.isEmpty() && removed.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+
+        WriteBatch batch = db.batch();
+        if (!updates.isEmpty()) {
+            batch.update(userRef, updates);
+        }
+        if (!removed.isEmpty()) {
+            batch.update(userRef, "favoriteProducts", FieldValue.arrayRemove(removed.toArray()));
+        }
+        return batch.commit();
+    }
+
+    // Matches any word of the name or category starting with the query's longest word.
+    // Firestore allows one array-contains per query, so callers filter on the other words.
     public Task<QuerySnapshot> searchProducts(String query) {
-        String searchQuery = query.toLowerCase();
+        String keyword = SearchTokenizer.queryKeyword(query);
+        if (keyword == null) {
+            return Tasks.forResult(null);
+        }
         return db.collection(PRODUCTS_COLLECTION)
-                .whereGreaterThanOrEqualTo("name", searchQuery)
-                .whereLessThanOrEqualTo("name", searchQuery + "\uf8ff")
+                .whereArrayContains("searchKeywords", keyword)
+                .limit(Constants.SEARCH_RESULT_LIMIT)
                 .get();
     }
 
@@ -277,6 +971,24 @@ public class FirebaseHelper {
                 .delete();
     }
 
+    // Applies a set of coalesced cart edits in one round trip
+    public Task<Void> commitCartChanges(String userId, List<CartItem> updatedItems, List<String> removedProductIds) {
+        WriteBatch batch = db.batch();
+        for (CartItem cartItem : updatedItems) {
+            batch.set(getCartItemsRef(userId).document(cartItem.getProductId()), cartItem);
+        }
+        for (String productId : removedProductIds) {
+            batch.delete(getCartItemsRef(userId).document(productId));
+        }
+        return batch.commit();
+    }
+
+    private CollectionReference getCartItemsRef(String userId) {
+        return db.collection(CART_COLLECTION)
+                .document(userId)
+                .collection("items");
+    }
+
     public Task<QuerySnapshot> getCartItems(String userId) {
         return db.collection(CART_COLLECTION)
                 .document(userId)
@@ -284,9 +996,33 @@ public class FirebaseHelper {
                 .get();
     }
 
+    // Deletes the items subcollection a batch at a time, then the cart document itself
     public Task<Void> clearCart(String userId) {
-        return db.collection(CART_COLLECTION)
-                .document(userId)
-                .delete();
+        return getCartItemsRef(userId)
+                .limit(MAX_BATCH_WRITES - 1)
+                .get()
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        return Tasks.forException(task.getException());
+                    }
+
+                    QuerySnapshot snapshot = task.getResult();
+                    boolean lastPage = snapshot.size() < MAX_BATCH_WRITES - 1;
+
+                    WriteBatch batch = db.batch();
+                    for (DocumentSnapshot document : snapshot.getDocuments()) {
+                        batch.delete(document.getReference());
+                    }
+                    if (lastPage) {
+                        batch.delete(db.collection(CART_COLLECTION).document(userId));
+                    }
+
+                    return batch.commit().continueWithTask(commitTask -> {
+                        if (!commitTask.isSuccessful() || lastPage) {
+                            return commitTask;
+                        }
+                        return clearCart(userId);
+                    });
+                });
     }
 }
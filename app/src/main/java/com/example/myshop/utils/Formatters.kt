@@ -0,0 +1,111 @@
+package com.example.myshop.utils
+
+import com.example.myshop.models.Money
+import java.text.NumberFormat
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import kotlin.math.pow
+import kotlin.math.roundToLong
+
+// The one place prices and dates are turned into text. NumberFormat and SimpleDateFormat
+// aren't thread-safe and are costly to build, so each thread keeps its own, and rendered
+// prices are cached by their value in cents so binding a row usually allocates nothing.
+// Setting a locale drops everything built for the old one. Dates follow the device's
+// current locale unless dateLocale is set, and its time zone: MyshopApplication calls
+// onTimeZoneChanged, which makes every thread rebuild its date formats on next use.
+object Formatters {
+
+    const val DATE_PATTERN = "dd MMM yyyy, HH:mm"
+    const val ORDER_DATE_PATTERN = "MMM dd, yyyy HH:mm"
+
+    // Power of two so the slot is a mask of the cents value
+    private const val PRICE_CACHE_SIZE = 1024
+
+    // minorUnitsPerUnit comes from the currency: 100 for USD, 1 for JPY, 1000 for KWD
+    private class PriceFormat(val locale: Locale, val format: NumberFormat, val minorUnitsPerUnit: Double)
+    private class DateFormats(
+        val locale: Locale,
+        val zoneGeneration: Int,
+        val byPattern: HashMap<String, SimpleDateFormat>
+    )
+
+    // Entries are immutable, so a racing reader sees either an old complete entry or a new one
+    private class CachedPrice(val cents: Long, val locale: Locale, val text: String)
+
+    @Volatile
+    var currencyLocale: Locale = Locale.US
+        set(value) {
+            field = value
+            priceCache.fill(null)
+        }
+
+    // Null follows Locale.getDefault()
+    @Volatile
+    var dateLocale: Locale? = null
+
+    // Bumped on ACTION_TIMEZONE_CHANGED; a SimpleDateFormat takes the default zone when built
+    @Volatile
+    private var zoneGeneration = 0
+
+    private val priceFormats = object : ThreadLocal<PriceFormat>() {
+        override fun initialValue() = newPriceFormat(currencyLocale)
+    }
+
+    private val dateFormats = object : ThreadLocal<DateFormats>() {
+        override fun initialValue() = DateFormats(dateLocale ?: Locale.getDefault(), zoneGeneration, HashMap())
+    }
+
+    private val priceCache = arrayOfNulls<CachedPrice>(PRICE_CACHE_SIZE)
+
+    // Assumes the amount is in the currency of currencyLocale
+    fun formatPrice(price: Money): String = formatCents(price.minorUnits)
+
+    fun formatPrice(price: Double): String =
+        formatCents((price * priceFormat(currencyLocale).minorUnitsPerUnit).roundToLong())
+
+    fun formatCents(cents: Long): String {
+        val locale = currencyLocale
+        val slot = (cents and (PRICE_CACHE_SIZE - 1).toLong()).toInt()
+        val cached = priceCache[slot]
+        if (cached != null && cached.cents == cents && cached.locale == locale) {
+            return cached.text
+        }
+
+        val priceFormat = priceFormat(locale)
+        val text = priceFormat.format.format(cents / priceFormat.minorUnitsPerUnit)
+        priceCache[slot] = CachedPrice(cents, locale, text)
+        return text
+    }
+
+    fun formatDate(date: Date, pattern: String = DATE_PATTERN): String {
+        val locale = dateLocale ?: Locale.getDefault()
+        val generation = zoneGeneration
+        var formats = dateFormats.get()!!
+        if (formats.locale != locale || formats.zoneGeneration != generation) {
+            formats = DateFormats(locale, generation, HashMap())
+            dateFormats.set(formats)
+        }
+        val format = formats.byPattern.getOrPut(pattern) { SimpleDateFormat(pattern, locale) }
+        return format.format(date)
+    }
+
+    fun onTimeZoneChanged() {
+        zoneGeneration++
+    }
+
+    private fun priceFormat(locale: Locale): PriceFormat {
+        var format = priceFormats.get()!!
+        if (format.locale != locale) {
+            format = newPriceFormat(locale)
+            priceFormats.set(format)
+        }
+        return format
+    }
+
+    private fun newPriceFormat(locale: Locale): PriceFormat {
+        val format = NumberFormat.getCurrencyInstance(locale)
+        val fractionDigits = format.currency?.defaultFractionDigits?.coerceAtLeast(0) ?: 2
+        return PriceFormat(locale, format, 10.0.pow(fractionDigits))
+    }
+}
@@ -47,6 +47,11 @@ class PreferenceHelper private constructor(context: Context) {
         get() = prefs.getString(Constants.PREF_FCM_TOKEN, null)
         set(value) = prefs.edit { putString(Constants.PREF_FCM_TOKEN, value) }
 
+    // User whose Firestore profile holds fcmToken; null while a write is outstanding
+    var fcmTokenSyncedUserId: String?
+        get() = prefs.getString("fcm_token_synced_user", null)
+        set(value) = prefs.edit { putString("fcm_token_synced_user", value) }
+
     // Cached User Data
     var cachedUser: User?
         get() {
@@ -67,11 +72,16 @@ class PreferenceHelper private constructor(context: Context) {
             }
         }
 
-    // Last Sync Time
+    // Last Sync Time (server updatedAt of the newest synced product)
     var lastSyncTime: Long
         get() = prefs.getLong("last_sync_time", 0)
         set(value) = prefs.edit { putLong("last_sync_time", value) }
 
+    // Last Full Sync Time (device time of the last full catalog download)
+    var lastFullSyncTime: Long
+        get() = prefs.getLong("last_full_sync_time", 0)
+        set(value) = prefs.edit { putLong("last_full_sync_time", value) }
+
     // App Theme
     var isDarkMode: Boolean
         get() = prefs.getBoolean("dark_mode", false)
@@ -122,6 +132,7 @@ class PreferenceHelper private constructor(context: Context) {
             remove(Constants.PREF_USER_ID)
             remove(Constants.PREF_USER_TYPE)
             remove("cached_user")
+            remove("fcm_token_synced_user")
             remove("cart_count")
             remove("search_history")
             remove("recently_viewed")
@@ -148,6 +159,32 @@ class PreferenceHelper private constructor(context: Context) {
         recentlyViewedProducts = recent
     }
 
+    // Resumable Storage upload sessions, keyed by the object path being written
+    fun getUploadSession(path: String): String? {
+        return prefs.getString("upload_session_$path", null)
+    }
+
+    fun setUploadSession(path: String, sessionUri: String?) {
+        prefs.edit {
+            if (sessionUri != null) putString("upload_session_$path", sessionUri) else remove("upload_session_$path")
+        }
+    }
+
+    // Progress of a catalog import, so a killed import resumes after its last committed chunk
+    fun getImportCheckpoint(importKey: String): String? {
+        return prefs.getString("import_checkpoint_$importKey", null)
+    }
+
+    fun setImportCheckpoint(importKey: String, checkpoint: String?) {
+        prefs.edit {
+            if (checkpoint != null) {
+                putString("import_checkpoint_$importKey", checkpoint)
+            } else {
+                remove("import_checkpoint_$importKey")
+            }
+        }
+    }
+
     // Check if specific feature is enabled
     fun isFeatureEnabled(featureKey: String, defaultValue: Boolean = false): Boolean {
         return prefs.getBoolean("feature_$featureKey", defaultValue)
@@ -0,0 +1,90 @@
+package com.example.myshop.utils;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import com.example.myshop.models.Product;
+
+import java.util.List;
+
+// Bounded in-memory cache of recently seen products. Entries expire after ttlMillis so
+// stock and price shown on a warm path are never older than that. Every invalidate bumps a
+// generation; a network read takes the generation before it starts and its result is only
+// stored if nothing was invalidated meanwhile, so a read that raced a write can't put the
+// old product back.
+public class ProductCache {
+    private final LruCache<String, Entry> entries;
+    private final long ttlMillis;
+    private long generation;
+
+    private static class Entry {
+        final Product product;
+        final long cachedAt;
+
+        Entry(Product product, long cachedAt) {
+            this.product = product;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+    public ProductCache(int maxSize, long ttlMillis) {
+        this.entries = new LruCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Returns null when the product is missing or expired
+    public Product get(String productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - entry.cachedAt > ttlMillis) {
+            entries.remove(productId);
+            return null;
+        }
+        return entry.product;
+    }
+
+    public void put(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        entries.put(product.getId(), new Entry(product, SystemClock.elapsedRealtime()));
+    }
+
+    public void putAll(List<Product> products) {
+        long now = SystemClock.elapsedRealtime();
+        for (Product product : products) {
+            if (product != null && product.getId() != null) {
+                entries.put(product.getId(), new Entry(product, now));
+            }
+        }
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    // Dropped when anything was invalidated after startedAt was taken
+    public synchronized void put(Product product, long startedAt) {
+        if (startedAt == generation) {
+            put(product);
+        }
+    }
+
+    public synchronized void putAll(List<Product> products, long startedAt) {
+        if (startedAt == generation) {
+            putAll(products);
+        }
+    }
+
+    public synchronized void invalidate(String productId) {
+        generation++;
+        entries.remove(productId);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.evictAll();
+    }
+}
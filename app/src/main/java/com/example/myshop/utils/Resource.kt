@@ -1,5 +1,7 @@
 package com.example.myshop.utils
 
+import kotlinx.coroutines.CancellationException
+
 sealed class Resource<T>(
     val data: T? = null,
     val message: String? = null,
@@ -113,9 +115,12 @@ inline fun <T> tryAsResource(block: () -> T): Resource<T> = try {
     Resource.error(e.message ?: "Unknown error occurred", e)
 }
 
-// Extension function to handle suspending functions and convert to Resource
+// Extension function to handle suspending functions and convert to Resource.
+// Cancellation is rethrown so a cancelled caller stops instead of reporting an error.
 suspend inline fun <T> tryAsResourceSuspend(crossinline block: suspend () -> T): Resource<T> = try {
     Resource.success(block())
+} catch (e: CancellationException) {
+    throw e
 } catch (e: Exception) {
     Resource.error(e.message ?: "Unknown error occurred", e)
 }
@@ -0,0 +1,40 @@
+package com.example.myshop.utils
+
+import java.util.Locale
+
+object SearchTokenizer {
+
+    // Longest prefix stored per word; longer queries still match on this prefix
+    const val MAX_PREFIX_LENGTH = 15
+
+    // Lowercased words, split on anything that is not a letter or digit
+    @JvmStatic
+    fun tokenize(text: String?): List<String> {
+        if (text.isNullOrBlank()) return emptyList()
+        return text.lowercase(Locale.ROOT)
+            .split(Regex("[^\\p{L}\\p{Nd}]+"))
+            .filter { it.isNotEmpty() }
+    }
+
+    // Every word prefix of the given fields, stored on the product for whereArrayContains
+    @JvmStatic
+    fun keywordsFor(vararg fields: String?): List<String> {
+        val keywords = LinkedHashSet<String>()
+        fields.forEach { field ->
+            tokenize(field).forEach { token ->
+                for (length in 1..minOf(token.length, MAX_PREFIX_LENGTH)) {
+                    keywords.add(token.substring(0, length))
+                }
+            }
+        }
+        return keywords.toList()
+    }
+
+    // The query token to send to Firestore; the longest one is the most selective
+    @JvmStatic
+    fun queryKeyword(query: String?): String? {
+        return tokenize(query)
+            .maxByOrNull { it.length }
+            ?.take(MAX_PREFIX_LENGTH)
+    }
+}
@@ -11,16 +11,16 @@ import android.widget.Toast
 import com.bumptech.glide.Glide
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions
 import com.example.myshop.R
+import com.example.myshop.models.Money
 import java.text.NumberFormat
-import java.text.SimpleDateFormat
 import java.util.Date
 import java.util.Locale
-import java.util.TimeZone
 
 object Utils {
 
-    // Format currency based on locale
-    fun formatPrice(price: Double, locale: Locale = Locale.getDefault()): String {
+    // Format currency; the app-wide locale is set on Formatters
+    fun formatPrice(price: Double, locale: Locale = Formatters.currencyLocale): String {
+        if (locale == Formatters.currencyLocale) return Formatters.formatPrice(price)
         return NumberFormat.getCurrencyInstance(locale).format(price)
     }
 
@@ -77,10 +77,8 @@ object Utils {
     }
 
     // Format date
-    fun formatDate(date: Date, pattern: String = "dd MMM yyyy, HH:mm"): String {
-        val sdf = SimpleDateFormat(pattern, Locale.getDefault())
-        sdf.timeZone = TimeZone.getDefault()
-        return sdf.format(date)
+    fun formatDate(date: Date, pattern: String = Formatters.DATE_PATTERN): String {
+        return Formatters.formatDate(date, pattern)
     }
 
     // Generate order ID
@@ -93,6 +91,13 @@ object Utils {
         return originalPrice - (originalPrice * discountPercentage / 100)
     }
 
+    // Same as above in exact minor units; the discount is rounded half up to the nearest unit
+    fun calculateDiscount(originalPrice: Money, discountPercentage: Int): Money {
+        val cents = originalPrice.minorUnits
+        val discount = (cents * discountPercentage + 50) / 100
+        return Money.of(cents - discount, originalPrice.currency)
+    }
+
     // Format file size
     fun formatFileSize(size: Long): String {
         val kb = size / 1024.0
@@ -0,0 +1,89 @@
+package com.example.myshop.data.catalog
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.io.BufferedReader
+import java.io.StringReader
+
+class CsvCatalogReaderTest {
+
+    private fun read(csv: String): List<CatalogRecord> =
+        CsvCatalogReader(BufferedReader(StringReader(csv))).use { reader ->
+            generateSequence { reader.next() }.toList()
+        }
+
+    @Test
+    fun quotedFieldsMayHoldCommas() {
+        val records = read("id,name,price\np1,\"Widget, large\",9.99\n")
+
+        assertEquals(1, records.size)
+        assertEquals("Widget, large", records[0].fields["name"])
+        assertEquals("9.99", records[0].fields["price"])
+    }
+
+    @Test
+    fun doubledQuotesAreUnescaped() {
+        val records = read("id,name\np1,\"The \"\"Best\"\" one\"\np2,\"\"\"\"\n")
+
+        assertEquals("The \"Best\" one", records[0].fields["name"])
+        assertEquals("\"", records[1].fields["name"])
+    }
+
+    @Test
+    fun quotedFieldsMayHoldLineBreaks() {
+        val records = read("id,description\np1,\"first line\nsecond line\"\np2,plain\n")
+
+        assertEquals(2, records.size)
+        assertEquals("first line\nsecond line", records[0].fields["description"])
+        assertEquals("plain", records[1].fields["description"])
+    }
+
+    @Test
+    fun crlfLineEndingsAreStripped() {
+        val records = read("id,name\r\np1,first\r\np2,second\r\n")
+
+        assertEquals(listOf("first", "second"), records.map { it.fields["name"] })
+        assertFalse(records.any { record -> record.fields.values.any { '\r' in it } })
+    }
+
+    @Test
+    fun blankRowsAreSkippedButCounted() {
+        val records = read("id,name\np1,first\n\r\n\np2,second\n")
+
+        assertEquals(listOf("p1", "p2"), records.map { it.fields["id"] })
+        assertEquals(listOf(1L, 4L), records.map { it.rowNumber })
+    }
+
+    @Test
+    fun rowsAreNumberedFromTheFirstDataRow() {
+        val records = read("id\np1\np2\np3")
+
+        assertEquals(listOf(1L, 2L, 3L), records.map { it.rowNumber })
+        assertEquals("p3", records.last().fields["id"])
+    }
+
+    @Test
+    fun headerNamesAreNormalised() {
+        val records = read("ID,Stock Quantity,image_url\np1,5,http://example.com/a.png\n")
+
+        assertEquals("p1", records[0].fields["id"])
+        assertEquals("5", records[0].fields["stockquantity"])
+        assertEquals("http://example.com/a.png", records[0].fields["imageurl"])
+    }
+
+    @Test
+    fun shortRowsOnlyHaveTheirOwnFields() {
+        val records = read("id,name,price\np1,first\n")
+
+        assertEquals("first", records[0].fields["name"])
+        assertNull(records[0].fields["price"])
+    }
+
+    @Test
+    fun emptyFileHasNoRecords() {
+        assertEquals(emptyList<CatalogRecord>(), read(""))
+        assertEquals(emptyList<CatalogRecord>(), read("id,name\n"))
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.myshop.data.pricing
+
+import com.example.myshop.models.CartItem
+import com.example.myshop.models.Money
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CartPricingEngineTest {
+
+    private val rules = PricingRules(
+        shippingCents = 599,
+        freeShippingThresholdCents = 5000,
+        minimumOrderCents = 1000,
+        categoryDiscountPercents = mapOf("sale" to 15, "clearance" to 10),
+        categoryTaxBasisPoints = mapOf("food" to 0),
+        defaultTaxBasisPoints = 825
+    )
+
+    private fun item(id: String, priceCents: Long, quantity: Int, category: String? = null) =
+        CartItem(id, id, Money.of(priceCents), "", quantity).also { it.category = category }
+
+    @Test
+    fun incrementalTotalsMatchPricingFromScratch() {
+        val engine = CartPricingEngine(rules)
+        engine.put(item("a", 1299, 2, "sale"))
+        engine.put(item("b", 450, 3, "food"))
+        engine.put(item("c", 999, 1))
+        engine.put(item("a", 1299, 5, "sale"))
+        engine.remove("b")
+        engine.put(item("d", 50, 7, "clearance"))
+
+        val expected = CartPricingEngine.price(
+            listOf(item("a", 1299, 5, "sale"), item("c", 999, 1), item("d", 50, 7, "clearance")),
+            rules
+        )
+        assertEquals(expected, engine.quote())
+    }
+
+    @Test
+    fun submitDropsLinesMissingFromTheSnapshot() {
+        val engine = CartPricingEngine(rules)
+        engine.submit(listOf(item("a", 1299, 2, "sale"), item("b", 450, 3, "food")))
+
+        val quote = engine.submit(listOf(item("b", 450, 4, "food")))
+
+        assertEquals(CartPricingEngine.price(listOf(item("b", 450, 4, "food")), rules), quote)
+        assertEquals(4, quote.itemCount)
+    }
+
+    @Test
+    fun putReportsWhetherPricingChanged() {
+        val engine = CartPricingEngine(rules)
+        assertTrue(engine.put(item("a", 1299, 2)))
+        assertFalse(engine.put(item("a", 1299, 2)))
+        assertTrue(engine.put(item("a", 1299, 2, "sale")))
+        assertTrue(engine.remove("a"))
+        assertFalse(engine.remove("a"))
+    }
+
+    @Test
+    fun discountIsRoundedHalfUpPerLine() {
+        // 15% of 50 is 7.5
+        val half = CartPricingEngine.price(listOf(item("a", 50, 1, "sale")), rules)
+        assertEquals(Money.of(8), half.discount)
+
+        // 15% of 999 is 149.85
+        val up = CartPricingEngine.price(listOf(item("a", 999, 1, "sale")), rules)
+        assertEquals(Money.of(150), up.discount)
+
+        // 10% of 333 is 33.3
+        val down = CartPricingEngine.price(listOf(item("a", 333, 1, "clearance")), rules)
+        assertEquals(Money.of(33), down.discount)
+    }
+
+    @Test
+    fun taxIsChargedOnTheDiscountedAmount() {
+        // 8.25% of 1001 is 82.58
+        val plain = CartPricingEngine.price(listOf(item("a", 1001, 1)), rules)
+        assertEquals(Money.of(83), plain.tax)
+
+        // 1000 less 15% is 850; 8.25% of 850 is 70.125
+        val discounted = CartPricingEngine.price(listOf(item("a", 1000, 1, "sale")), rules)
+        assertEquals(Money.of(150), discounted.discount)
+        assertEquals(Money.of(70), discounted.tax)
+        assertEquals(Money.of(920), discounted.itemsTotal)
+
+        val exempt = CartPricingEngine.price(listOf(item("a", 1000, 1, "food")), rules)
+        assertEquals(Money.ZERO, exempt.tax)
+    }
+
+    @Test
+    fun minimumOrderBoundary() {
+        val below = CartPricingEngine.price(listOf(item("a", 999, 1)), rules)
+        assertFalse(below.meetsMinimum)
+        assertEquals(Money.of(1), below.amountToMinimum)
+
+        val exact = CartPricingEngine.price(listOf(item("a", 1000, 1)), rules)
+        assertTrue(exact.meetsMinimum)
+        assertEquals(Money.ZERO, exact.amountToMinimum)
+
+        // Promotions count against the minimum: 1100 less 10% is 990
+        val discounted = CartPricingEngine.price(listOf(item("a", 1100, 1, "clearance")), rules)
+        assertFalse(discounted.meetsMinimum)
+        assertEquals(Money.of(10), discounted.amountToMinimum)
+    }
+
+    @Test
+    fun shippingIsFreeFromTheThresholdAndOnEmptyCarts() {
+        assertEquals(Money.ZERO, CartPricingEngine.price(emptyList(), rules).shipping)
+
+        val below = CartPricingEngine.price(listOf(item("a", 4999, 1, "food")), rules)
+        assertEquals(Money.of(599), below.shipping)
+        assertEquals(Money.of(4999 + 599), below.total)
+
+        val at = CartPricingEngine.price(listOf(item("a", 5000, 1, "food")), rules)
+        assertEquals(Money.ZERO, at.shipping)
+    }
+
+    @Test
+    fun roundedShareRoundsHalfUp() {
+        assertEquals(1L, CartPricingEngine.roundedShare(1, 5000, 10_000))
+        assertEquals(0L, CartPricingEngine.roundedShare(1, 4999, 10_000))
+        assertEquals(0L, CartPricingEngine.roundedShare(0, 825, 10_000))
+    }
+}
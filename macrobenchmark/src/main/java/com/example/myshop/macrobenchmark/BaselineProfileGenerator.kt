@@ -0,0 +1,30 @@
+package com.example.myshop.macrobenchmark
+
+import androidx.benchmark.macro.ExperimentalBaselineProfilesApi
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+// Records the classes and methods used from launch, through sign-in, to a first scroll of
+// the product grid. Needs a rooted device or emulator; copy the generated file over
+// app/src/main/baseline-prof.txt.
+@OptIn(ExperimentalBaselineProfilesApi::class)
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+
+    @get:Rule
+    val baselineProfileRule = BaselineProfileRule()
+
+    @Test
+    fun startup() {
+        EmulatorSeeder.seed()
+        baselineProfileRule.collectBaselineProfile(packageName = TARGET_PACKAGE) {
+            pressHome()
+            startActivityAndWait()
+            device.signIn()
+            scrollList("featuredProductsRecyclerView")
+        }
+    }
+}
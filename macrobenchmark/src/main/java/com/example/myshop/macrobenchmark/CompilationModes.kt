@@ -0,0 +1,12 @@
+package com.example.myshop.macrobenchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+
+// Every suite runs once per mode: no AOT compilation as a worst case, the shipped
+// Baseline Profile (fails if it wasn't installed), and full AOT as a best case
+fun compilationModes(): List<CompilationMode> = listOf(
+    CompilationMode.None(),
+    CompilationMode.Partial(baselineProfileMode = BaselineProfileMode.Require),
+    CompilationMode.Full()
+)
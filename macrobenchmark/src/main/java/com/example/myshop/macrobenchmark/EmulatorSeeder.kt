@@ -0,0 +1,133 @@
+package com.example.myshop.macrobenchmark
+
+import androidx.test.platform.app.InstrumentationRegistry
+import org.json.JSONArray
+import org.json.JSONObject
+import java.net.HttpURLConnection
+import java.net.URL
+
+// Fills the Auth and Firestore emulators the benchmark build talks to with a fixed test
+// account, catalog and cart, through the emulators' REST APIs. Every write targets a fixed
+// document id, so seeding again just overwrites the same data.
+object EmulatorSeeder {
+
+    const val TEST_EMAIL = "benchmark@myshop.test"
+    const val TEST_PASSWORD = "benchmark123"
+
+    private const val CATALOG_SIZE = 200
+    private const val CART_SIZE = 40
+    private const val COMMIT_CHUNK = 500
+    private val CATEGORIES = listOf("Electronics", "Clothing", "Home", "Books", "Sports", "Toys")
+
+    // 10.0.2.2 is the host machine as seen from an Android emulator
+    private const val EMULATOR_HOST = "http://10.0.2.2"
+    private const val FIRESTORE_PORT = 8080
+    private const val AUTH_PORT = 9099
+
+    // The emulators accept this token in place of real credentials and skip security rules
+    private const val OWNER_TOKEN = "Bearer owner"
+
+    @Volatile
+    private var seeded = false
+
+    // Project id from app/google-services.json, passed as the myshopProjectId argument
+    private val projectId: String
+        get() = InstrumentationRegistry.getArguments().getString("myshopProjectId")
+            ?: error("myshopProjectId argument is required")
+
+    @Synchronized
+    fun seed() {
+        if (seeded) return
+
+        val userId = createTestUser()
+        val writes = JSONArray()
+        writes.put(update("users/$userId", JSONObject()
+            .put("userId", string(userId))
+            .put("email", string(TEST_EMAIL))
+            .put("fullName", string("Benchmark User"))
+            .put("userType", string("CUSTOMER"))))
+
+        (1..CATALOG_SIZE).forEach { index ->
+            val priceCents = 500L + index * 3700L % 50000L
+            val fields = JSONObject()
+                .put("id", string(productId(index)))
+                .put("name", string("Product $index"))
+                .put("description", string("Seeded product $index for benchmarks"))
+                .put("priceCents", long(priceCents))
+                .put("currency", string("USD"))
+                .put("imageUrl", string(""))
+                .put("category", string(CATEGORIES[index % CATEGORIES.size]))
+                .put("stockQuantity", long(100))
+                .put("updatedAt", JSONObject().put("timestampValue", "2024-01-01T00:00:00Z"))
+            writes.put(update("products/${productId(index)}", fields))
+
+            if (index <= CART_SIZE) {
+                val quantity = 1 + index % 3
+                writes.put(update("carts/$userId/items/${productId(index)}", JSONObject()
+                    .put("productId", string(productId(index)))
+                    .put("productName", string("Product $index"))
+                    .put("productPriceCents", long(priceCents))
+                    .put("currency", string("USD"))
+                    .put("productImage", string(""))
+                    .put("quantity", long(quantity.toLong()))
+                    .put("totalPriceCents", long(priceCents * quantity))))
+            }
+        }
+
+        // The commit endpoint takes at most 500 writes, like a WriteBatch
+        (0 until writes.length()).chunked(COMMIT_CHUNK).forEach { chunk ->
+            val body = JSONObject().put("writes", JSONArray(chunk.map(writes::get)))
+            post("$EMULATOR_HOST:$FIRESTORE_PORT/v1/$databasePath/documents:commit", body, OWNER_TOKEN)
+        }
+        seeded = true
+    }
+
+    private val databasePath get() = "projects/$projectId/databases/(default)"
+
+    private fun productId(index: Int) = "bench_product_%03d".format(index)
+
+    // Signs the test account up, or in if an earlier run already created it
+    private fun createTestUser(): String {
+        val body = JSONObject()
+            .put("email", TEST_EMAIL)
+            .put("password", TEST_PASSWORD)
+            .put("returnSecureToken", true)
+        val accounts = "$EMULATOR_HOST:$AUTH_PORT/identitytoolkit.googleapis.com/v1/accounts"
+        val response = try {
+            post("$accounts:signUp?key=benchmark", body)
+        } catch (e: IllegalStateException) {
+            post("$accounts:signInWithPassword?key=benchmark", body)
+        }
+        return response.getString("localId")
+    }
+
+    private fun update(path: String, fields: JSONObject) = JSONObject().put(
+        "update",
+        JSONObject()
+            .put("name", "$databasePath/documents/$path")
+            .put("fields", fields)
+    )
+
+    private fun string(value: String) = JSONObject().put("stringValue", value)
+    private fun long(value: Long) = JSONObject().put("integerValue", value.toString())
+
+    private fun post(url: String, body: JSONObject, authorization: String? = null): JSONObject {
+        val connection = URL(url).openConnection() as HttpURLConnection
+        try {
+            connection.requestMethod = "POST"
+            connection.doOutput = true
+            connection.setRequestProperty("Content-Type", "application/json")
+            authorization?.let { connection.setRequestProperty("Authorization", it) }
+            connection.outputStream.use { it.write(body.toString().toByteArray()) }
+
+            val code = connection.responseCode
+            if (code !in 200..299) {
+                val error = connection.errorStream?.bufferedReader()?.use { it.readText() }
+                throw IllegalStateException("POST $url failed with $code: $error")
+            }
+            return JSONObject(connection.inputStream.bufferedReader().use { it.readText() })
+        } finally {
+            connection.disconnect()
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.myshop.macrobenchmark
+
+import android.content.Intent
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.test.platform.app.InstrumentationRegistry
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.UiDevice
+import androidx.test.uiautomator.Until
+
+const val TARGET_PACKAGE = "com.example.myshop"
+const val ITERATIONS = 10
+
+private const val MAIN_ACTIVITY = "$TARGET_PACKAGE.ui.activities.MainActivity"
+private const val UI_TIMEOUT_MS = 10_000L
+private const val SCROLL_FLINGS = 3
+
+fun mainActivityIntent(): Intent = Intent(Intent.ACTION_MAIN).setClassName(TARGET_PACKAGE, MAIN_ACTIVITY)
+
+// Signs in as the seeded account from the login form AuthActivity opens with
+fun UiDevice.signIn() {
+    wait(Until.hasObject(By.res(TARGET_PACKAGE, "emailInput")), UI_TIMEOUT_MS)
+    findObject(By.res(TARGET_PACKAGE, "emailInput")).text = EmulatorSeeder.TEST_EMAIL
+    findObject(By.res(TARGET_PACKAGE, "passwordInput")).text = EmulatorSeeder.TEST_PASSWORD
+    findObject(By.res(TARGET_PACKAGE, "authButton")).click()
+    waitForHome()
+}
+
+// MainActivity is up once the bottom navigation and the first products are on screen
+fun UiDevice.waitForHome() {
+    wait(Until.hasObject(By.res(TARGET_PACKAGE, "nav_view")), UI_TIMEOUT_MS)
+    wait(Until.hasObject(By.res(TARGET_PACKAGE, "featuredProductsRecyclerView").hasChild(By.depth(1))), UI_TIMEOUT_MS)
+}
+
+// Seeds the emulators, then signs in. Firebase Auth keeps the session on disk, so the
+// sign-in only has to happen once per install.
+fun ensureSignedIn() {
+    EmulatorSeeder.seed()
+    val device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation())
+    device.executeShellCommand("am start -W -n $TARGET_PACKAGE/.ui.activities.AuthActivity")
+    if (device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "emailInput")), UI_TIMEOUT_MS)) {
+        device.signIn()
+    }
+    device.executeShellCommand("am force-stop $TARGET_PACKAGE")
+}
+
+fun MacrobenchmarkScope.startSignedIn() {
+    startActivityAndWait(mainActivityIntent())
+    device.waitForHome()
+}
+
+fun MacrobenchmarkScope.openCart() {
+    device.findObject(By.res(TARGET_PACKAGE, "navigation_cart")).click()
+    device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "cartRecyclerView").hasChild(By.depth(1))), UI_TIMEOUT_MS)
+}
+
+// Flings a list to the bottom and back, waiting for each fling to settle
+fun MacrobenchmarkScope.scrollList(resourceId: String) {
+    val list = device.findObject(By.res(TARGET_PACKAGE, resourceId))
+    // Keeps the fling clear of the gesture navigation area
+    list.setGestureMargin(device.displayWidth / 5)
+    repeat(SCROLL_FLINGS) {
+        list.fling(Direction.DOWN)
+        device.waitForIdle()
+    }
+    repeat(SCROLL_FLINGS) {
+        list.fling(Direction.UP)
+        device.waitForIdle()
+    }
+}
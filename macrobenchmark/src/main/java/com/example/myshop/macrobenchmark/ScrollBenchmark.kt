@@ -0,0 +1,61 @@
+package com.example.myshop.macrobenchmark
+
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+// Frame times while flinging through the seeded catalog in HomeFragment's grid and the
+// seeded cart in CartFragment. Only the scrolling is measured; launching and navigating
+// happen in the setup block.
+@RunWith(Parameterized::class)
+class ScrollBenchmark(private val compilationMode: CompilationMode) {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Before
+    fun signIn() = ensureSignedIn()
+
+    @Test
+    fun productGridScroll() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = compilationMode,
+        iterations = ITERATIONS,
+        startupMode = StartupMode.WARM,
+        setupBlock = {
+            pressHome()
+            startSignedIn()
+        }
+    ) {
+        scrollList("featuredProductsRecyclerView")
+    }
+
+    @Test
+    fun cartScroll() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = compilationMode,
+        iterations = ITERATIONS,
+        startupMode = StartupMode.WARM,
+        setupBlock = {
+            pressHome()
+            startSignedIn()
+            openCart()
+        }
+    ) {
+        scrollList("cartRecyclerView")
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "{0}")
+        fun parameters() = compilationModes()
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.myshop.macrobenchmark
+
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+// Launch times for both halves of opening the app: AuthActivity from the launcher, and
+// MainActivity up to the first products for a user who is already signed in.
+@RunWith(Parameterized::class)
+class StartupBenchmark(private val compilationMode: CompilationMode) {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun authColdStartup() = authStartup(StartupMode.COLD)
+
+    @Test
+    fun authWarmStartup() = authStartup(StartupMode.WARM)
+
+    @Test
+    fun mainColdStartup() = mainStartup(StartupMode.COLD)
+
+    @Test
+    fun mainWarmStartup() = mainStartup(StartupMode.WARM)
+
+    private fun authStartup(startupMode: StartupMode) = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric()),
+        compilationMode = compilationMode,
+        iterations = ITERATIONS,
+        startupMode = startupMode,
+        setupBlock = { pressHome() }
+    ) {
+        startActivityAndWait()
+    }
+
+    private fun mainStartup(startupMode: StartupMode) {
+        ensureSignedIn()
+        benchmarkRule.measureRepeated(
+            packageName = TARGET_PACKAGE,
+            metrics = listOf(StartupTimingMetric()),
+            compilationMode = compilationMode,
+            iterations = ITERATIONS,
+            startupMode = startupMode,
+            setupBlock = { pressHome() }
+        ) {
+            startSignedIn()
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "{0}")
+        fun parameters() = compilationModes()
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.myshop.microbenchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.example.myshop.models.CartItem
+import com.example.myshop.models.Money
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+// Price recalculation that runs for every cart row bind and quantity change
+@RunWith(AndroidJUnit4::class)
+class CartItemBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val cartItem = CartItem("product_001", "Product 1", Money.of(1999), "", 3)
+
+    @Test
+    fun updateTotalPrice() = benchmarkRule.measureRepeated {
+        cartItem.updateTotalPrice()
+    }
+
+    @Test
+    fun setQuantity() {
+        var quantity = 1
+        benchmarkRule.measureRepeated {
+            cartItem.quantity = quantity
+            quantity = quantity % 10 + 1
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.myshop.microbenchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.example.myshop.data.pricing.CartPricingEngine
+import com.example.myshop.data.pricing.PricingRules
+import com.example.myshop.models.CartItem
+import com.example.myshop.models.Money
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+// Repricing a 40-line cart after one quantity change, incrementally and from scratch
+@RunWith(AndroidJUnit4::class)
+class CartPricingBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val rules = PricingRules(
+        freeShippingThresholdCents = 10_000,
+        categoryDiscountPercents = mapOf("Electronics" to 10),
+        categoryTaxBasisPoints = mapOf("Clothing" to 600),
+        defaultTaxBasisPoints = 825
+    )
+
+    private val items = List(CART_SIZE) { index ->
+        CartItem("product_$index", "Product $index", Money.of(999L + index * 100), "", 1 + index % 3)
+            .apply { category = CATEGORIES[index % CATEGORIES.size] }
+    }
+
+    @Test
+    fun quantityChangeIncremental() {
+        val engine = CartPricingEngine(rules)
+        engine.submit(items)
+        val item = items[CART_SIZE / 2]
+        var quantity = 1
+        benchmarkRule.measureRepeated {
+            item.quantity = quantity
+            engine.put(item)
+            engine.quote()
+            quantity = quantity % 10 + 1
+        }
+    }
+
+    @Test
+    fun quantityChangeFullReprice() {
+        val item = items[CART_SIZE / 2]
+        var quantity = 1
+        benchmarkRule.measureRepeated {
+            item.quantity = quantity
+            CartPricingEngine.price(items, rules)
+            quantity = quantity % 10 + 1
+        }
+    }
+
+    private companion object {
+        const val CART_SIZE = 40
+        val CATEGORIES = listOf("Electronics", "Clothing", "Books", "Home")
+    }
+}
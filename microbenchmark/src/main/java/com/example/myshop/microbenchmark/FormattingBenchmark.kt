@@ -0,0 +1,42 @@
+package com.example.myshop.microbenchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.example.myshop.utils.Utils
+import com.example.myshop.utils.formatAsPrice
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.Date
+
+// Price and date formatting as done once per bound product, cart and order row
+@RunWith(AndroidJUnit4::class)
+class FormattingBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val price = 1249.5
+    private val date = Date(1_700_000_000_000L)
+
+    @Test
+    fun formatPrice() = benchmarkRule.measureRepeated {
+        Utils.formatPrice(price)
+    }
+
+    @Test
+    fun formatDate() = benchmarkRule.measureRepeated {
+        Utils.formatDate(date)
+    }
+
+    @Test
+    fun doubleFormatAsPrice() = benchmarkRule.measureRepeated {
+        price.formatAsPrice()
+    }
+
+    @Test
+    fun stringFormatAsPrice() = benchmarkRule.measureRepeated {
+        "1249.50".formatAsPrice()
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.myshop.microbenchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.example.myshop.models.Money
+import com.example.myshop.models.Order
+import com.example.myshop.models.OrderItem
+import com.example.myshop.models.Product
+import com.example.myshop.models.User
+import com.google.android.gms.tasks.Tasks
+import com.google.firebase.firestore.DocumentSnapshot
+import com.google.firebase.firestore.FirebaseFirestore
+import com.google.firebase.firestore.Source
+import com.google.gson.Gson
+import org.junit.BeforeClass
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+// Firestore snapshot to model mapping, and the Gson round trip PreferenceHelper does for
+// the cached user
+@RunWith(AndroidJUnit4::class)
+class MappingBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val gson = Gson()
+
+    @Test
+    fun productToObject() = benchmarkRule.measureRepeated {
+        productSnapshot.toObject(Product::class.java)
+    }
+
+    @Test
+    fun orderToObject() = benchmarkRule.measureRepeated {
+        orderSnapshot.toObject(Order::class.java)
+    }
+
+    @Test
+    fun userGsonRoundTrip() {
+        val user = testUser()
+        benchmarkRule.measureRepeated {
+            gson.fromJson(gson.toJson(user), User::class.java)
+        }
+    }
+
+    companion object {
+        private lateinit var productSnapshot: DocumentSnapshot
+        private lateinit var orderSnapshot: DocumentSnapshot
+
+        // Snapshots come from Firestore's local cache with the network off, so nothing
+        // leaves the device and every run maps the same data
+        @JvmStatic
+        @BeforeClass
+        fun createSnapshots() {
+            val firestore = FirebaseFirestore.getInstance()
+            Tasks.await(firestore.disableNetwork())
+
+            val productRef = firestore.collection("benchmark_products").document("product_001")
+            productRef.set(Product("product_001", "Wireless Headphones",
+                "Over-ear headphones with noise cancelling", Money.of(12999), "", "Electronics", 25))
+            productSnapshot = Tasks.await(productRef.get(Source.CACHE))
+
+            val items = (1..5).map { OrderItem("product_00$it", it, Money.of(999L * it)) }
+            val address = Order.ShippingAddress("Benchmark User", "1 Main St", "Springfield",
+                "IL", "62701", "5551234567")
+            val orderRef = firestore.collection("benchmark_orders").document("order_001")
+            orderRef.set(Order("order_001", "user_001", items, Money.of(15984), address, "CARD"))
+            orderSnapshot = Tasks.await(orderRef.get(Source.CACHE))
+        }
+
+        private fun testUser() = User("user_001", "user@example.com", "Benchmark User", "5551234567").apply {
+            addresses = listOf(Order.ShippingAddress("Benchmark User", "1 Main St", "Springfield",
+                "IL", "62701", "5551234567"))
+            favoriteProducts = (1..20).map { "product_%03d".format(it) }
+        }
+    }
+}